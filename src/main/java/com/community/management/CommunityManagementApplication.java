@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching; // Add this import
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableJpaAuditing // To enable automatic setting of created_at and updated_at
 @EnableCaching // Enable caching
+@EnableScheduling // Background jobs such as reminder dispatch
 public class CommunityManagementApplication {
 
     public static void main(String[] args) {
@@ -11,24 +11,33 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.community.management.dto.request.UpdateUserRoleRequest;
 import com.community.management.dto.response.ApiResponse;
 import com.community.management.dto.response.AuditLogResponse;
+import com.community.management.dto.response.DocumentResponse;
 import com.community.management.dto.response.UserAdminResponse;
 import com.community.management.entity.EventStatus;
 import com.community.management.entity.UserRole;
 import com.community.management.entity.VolunteerStatus;
 import com.community.management.service.AuditService;
+import com.community.management.service.ColdFileMigrator;
 import com.community.management.service.DiscussionService;
+import com.community.management.service.DocumentDownloadCounter;
 import com.community.management.service.DocumentService;
 import com.community.management.service.EventService;
+import com.community.management.service.LocalFileStorageService;
+import com.community.management.service.OrphanFileCollector;
+import com.community.management.service.StorageQuotaService;
 import com.community.management.service.UserService;
 import com.community.management.service.VolunteerService;
+import com.community.management.service.VolunteerSlotAllocator;
 
 import jakarta.validation.Valid;
 
@@ -55,6 +64,24 @@ public class AdminController {
     @Autowired
     private DocumentService documentService;
 
+    @Autowired
+    private VolunteerSlotAllocator volunteerSlotAllocator;
+
+    @Autowired
+    private DocumentDownloadCounter documentDownloadCounter;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Autowired(required = false) // Absent when files are stored in S3
+    private LocalFileStorageService localFileStorageService;
+
+    @Autowired(required = false)
+    private OrphanFileCollector orphanFileCollector;
+
+    @Autowired(required = false) // Only with local storage and a cold tier configured
+    private ColdFileMigrator coldFileMigrator;
+
     @GetMapping("/users")
     public ResponseEntity<List<UserAdminResponse>> getAllUsers() {
         List<UserAdminResponse> users = userService.getAllUsers();
@@ -110,6 +137,66 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
 
+    @GetMapping("/metrics/volunteer-slots")
+    public ResponseEntity<Map<String, Long>> getVolunteerSlotMetrics() {
+        return ResponseEntity.ok(volunteerSlotAllocator.getMetrics());
+    }
+
+    @GetMapping("/documents/top-downloaded")
+    public ResponseEntity<List<DocumentResponse>> getTopDownloadedDocuments(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(documentService.getTopDownloadedDocuments(Math.max(1, Math.min(limit, 100))));
+    }
+
+    @GetMapping("/metrics/downloads")
+    public ResponseEntity<Map<String, Long>> getDownloadMetrics() {
+        return ResponseEntity.ok(documentDownloadCounter.getMetrics());
+    }
+
+    @GetMapping("/metrics/storage-layout")
+    public ResponseEntity<Map<String, Object>> getStorageLayoutMetrics() {
+        if (localFileStorageService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(localFileStorageService.getLayoutMetrics());
+    }
+
+    @GetMapping("/metrics/storage-gc")
+    public ResponseEntity<Map<String, Object>> getStorageGcReport() {
+        if (orphanFileCollector == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(orphanFileCollector.getLastReport());
+    }
+
+    @PostMapping("/storage/gc")
+    public ResponseEntity<Map<String, Object>> collectOrphanFiles() {
+        if (orphanFileCollector == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(orphanFileCollector.collect());
+    }
+
+    @GetMapping("/metrics/cold-tier")
+    public ResponseEntity<Map<String, Object>> getColdTierReport() {
+        if (coldFileMigrator == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(coldFileMigrator.getLastReport());
+    }
+
+    @PostMapping("/storage/cold-tier/migrate")
+    public ResponseEntity<Map<String, Object>> migrateColdFiles() {
+        if (coldFileMigrator == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(coldFileMigrator.migrate());
+    }
+
+    @GetMapping("/storage/usage")
+    public ResponseEntity<Map<String, Object>> getStorageUsage(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(storageQuotaService.getUsageReport(Math.max(1, Math.min(limit, 100))));
+    }
+
     @GetMapping("/system-stats")
     public ResponseEntity<String> getSystemStats() {
         return ResponseEntity.ok("System Statistics Placeholder");
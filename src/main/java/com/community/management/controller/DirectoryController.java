@@ -1,17 +1,33 @@
 package com.community.management.controller;
 
 import com.community.management.dto.request.UpdateDirectoryEntryRequest;
+import com.community.management.dto.response.AutocompleteSuggestion;
 import com.community.management.dto.response.DirectoryEntryResponse;
+import com.community.management.dto.response.DirectoryFilterResponse;
+import com.community.management.dto.response.DirectoryPageSnapshot;
+import com.community.management.dto.response.LocationRollupResponse;
+import com.community.management.dto.response.MemberSuggestionResponse;
 import com.community.management.security.UserPrincipal;
+import com.community.management.service.DirectoryExportService;
 import com.community.management.service.DirectoryService;
+import com.community.management.service.DirectorySnapshotCache;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/directory")
@@ -20,16 +36,102 @@ public class DirectoryController {
     @Autowired
     private DirectoryService directoryService;
 
+    @Autowired
+    private DirectorySnapshotCache directorySnapshotCache;
+
+    @Autowired
+    private DirectoryExportService directoryExportService;
+
+    // Pages are served from the directory page cache; a client sending the current version as If-None-Match gets a 304
     @GetMapping
-    public ResponseEntity<List<DirectoryEntryResponse>> getAllDirectoryEntries(@RequestParam(required = false) String displayName,
-                                                                               @RequestParam(required = false) String city,
-                                                                               @RequestParam(required = false) String state,
-                                                                               @RequestParam(required = false) String district,
-                                                                               @RequestParam(required = false) String communityName) {
-        List<DirectoryEntryResponse> entries = directoryService.getAllDirectoryEntries(displayName, city, state, district, communityName);
+    public ResponseEntity<String> getAllDirectoryEntries(@RequestParam(required = false) String displayName,
+                                                         @RequestParam(required = false) String city,
+                                                         @RequestParam(required = false) String state,
+                                                         @RequestParam(required = false) String district,
+                                                         @RequestParam(required = false) String communityName,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "50") int limit,
+                                                         WebRequest webRequest) {
+        int pageSize = Math.max(1, Math.min(limit, 200));
+        long version = directorySnapshotCache.currentVersion();
+        if (version != DirectorySnapshotCache.UNKNOWN_VERSION
+                && webRequest.checkNotModified(DirectorySnapshotCache.etag(version))) {
+            return null;
+        }
+
+        String key = String.join("&", cacheKeyPart(displayName), cacheKeyPart(city), cacheKeyPart(state),
+                cacheKeyPart(district), cacheKeyPart(communityName), cacheKeyPart(cursor), Integer.toString(pageSize));
+        DirectoryPageSnapshot page = directorySnapshotCache.getPage(version, key, () -> directoryService.getAllDirectoryEntries(
+                displayName, city, state, district, communityName, cursor, pageSize));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache().cachePrivate());
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getBody());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<DirectoryEntryResponse>> searchDirectory(@RequestParam("q") String query,
+                                                                        @RequestParam(defaultValue = "20") int limit) {
+        List<DirectoryEntryResponse> entries = directoryService.searchByName(query, Math.max(1, Math.min(limit, 100)));
         return ResponseEntity.ok(entries);
     }
 
+    @GetMapping("/filter")
+    public ResponseEntity<DirectoryFilterResponse> filterDirectory(@RequestParam(defaultValue = "") List<String> skills,
+                                                                   @RequestParam(defaultValue = "") List<String> interests,
+                                                                   @RequestParam(defaultValue = "all") String match,
+                                                                   @RequestParam(required = false) String state,
+                                                                   @RequestParam(required = false) String district,
+                                                                   @RequestParam(required = false) String city,
+                                                                   @RequestParam(required = false) String communityName,
+                                                                   @RequestParam(defaultValue = "0") int offset,
+                                                                   @RequestParam(defaultValue = "50") int limit) {
+        DirectoryFilterResponse response = directoryService.filterByTags(skills, interests, match, state, district, city,
+                communityName, Math.max(0, offset), Math.max(1, Math.min(limit, 200)));
+        return ResponseEntity.ok(response);
+    }
+
+    // Suggestions change slowly, so browsers may reuse them for a minute instead of asking on every keystroke
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<AutocompleteSuggestion>> autocomplete(@RequestParam String field,
+                                                                     @RequestParam(defaultValue = "") String prefix,
+                                                                     @RequestParam(defaultValue = "10") int limit) {
+        List<AutocompleteSuggestion> suggestions = directoryService.autocomplete(field, prefix, Math.max(1, limit));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(60, TimeUnit.SECONDS).cachePrivate())
+                .body(suggestions);
+    }
+
+    // Member counts by location; without parameters the breakdown by state, with state the districts in it, and so on
+    @GetMapping("/rollups")
+    public ResponseEntity<LocationRollupResponse> getLocationRollup(@RequestParam(required = false) String state,
+                                                                    @RequestParam(required = false) String district,
+                                                                    @RequestParam(required = false) String city,
+                                                                    @RequestParam(defaultValue = "1") int depth) {
+        return ResponseEntity.ok(directoryService.getLocationRollup(state, district, city, Math.max(0, depth)));
+    }
+
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<MemberSuggestionResponse>> suggestMembers(@AuthenticationPrincipal UserPrincipal currentUser,
+                                                                         @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(directoryService.suggestMembers(currentUser, Math.max(1, Math.min(limit, 50))));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportDirectory(@RequestParam(defaultValue = "csv") String format,
+                                @RequestParam(required = false) String state,
+                                @RequestParam(required = false) String district,
+                                @RequestParam(required = false) String city,
+                                @RequestParam(required = false) String communityName,
+                                HttpServletResponse response) throws IOException {
+        directoryExportService.writeExport(DirectoryExportService.Format.fromParameter(format), state, district, city,
+                communityName, response);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<DirectoryEntryResponse> getDirectoryEntryById(@PathVariable UUID id) {
         DirectoryEntryResponse entry = directoryService.getDirectoryEntryById(id);
@@ -48,4 +150,9 @@ public class DirectoryController {
         DirectoryEntryResponse updatedEntry = directoryService.updateMyDirectoryEntry(request, currentUser);
         return ResponseEntity.ok(updatedEntry);
     }
-}
\ No newline at end of file
+
+    // Encoded, so that no combination of parameter values can produce another combination's key
+    private static String cacheKeyPart(String value) {
+        return value == null || value.isBlank() ? "" : URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -1,20 +1,29 @@
 package com.community.management.controller;
 
 import com.community.management.dto.request.CreateDocumentRequest;
+import com.community.management.dto.request.CreateUploadSessionRequest;
 import com.community.management.dto.request.UpdateDocumentRequest;
+import com.community.management.dto.response.CursorPage;
 import com.community.management.dto.response.DocumentResponse;
+import com.community.management.dto.response.UploadSessionResponse;
 import com.community.management.entity.DocumentCategory;
 import com.community.management.security.UserPrincipal;
+import com.community.management.service.ChunkedUploadService;
+import com.community.management.service.DocumentArchiveService;
 import com.community.management.service.DocumentService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -25,6 +34,12 @@ public class DocumentController {
     @Autowired
     private DocumentService documentService;
 
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private DocumentArchiveService documentArchiveService;
+
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<DocumentResponse> uploadDocument(@Valid @RequestPart("request") CreateDocumentRequest request,
@@ -34,14 +49,83 @@ public class DocumentController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    @PostMapping("/uploads")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UploadSessionResponse> createUploadSession(@Valid @RequestBody CreateUploadSessionRequest request,
+                                                                     @AuthenticationPrincipal UserPrincipal currentUser) {
+        UploadSessionResponse response = chunkedUploadService.createSession(request, currentUser);
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+
+    @GetMapping("/uploads/{sessionId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UploadSessionResponse> getUploadSession(@PathVariable UUID sessionId,
+                                                                  @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(chunkedUploadService.getSession(sessionId, currentUser));
+    }
+
+    // The body is read straight from the request stream so that the container never buffers the chunk
+    @PutMapping(value = "/uploads/{sessionId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UploadSessionResponse> uploadChunk(@PathVariable UUID sessionId,
+                                                             @RequestHeader("Upload-Offset") long offset,
+                                                             @RequestHeader(value = "Upload-Checksum", required = false) String checksum,
+                                                             HttpServletRequest servletRequest,
+                                                             @AuthenticationPrincipal UserPrincipal currentUser) throws IOException {
+        UploadSessionResponse response = chunkedUploadService.appendChunk(sessionId, offset, checksum,
+                servletRequest.getInputStream(), currentUser);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/uploads/{sessionId}/complete")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DocumentResponse> completeUpload(@PathVariable UUID sessionId,
+                                                           @AuthenticationPrincipal UserPrincipal currentUser) {
+        DocumentResponse response = documentService.completeChunkedUpload(sessionId, currentUser);
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/uploads/{sessionId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> cancelUpload(@PathVariable UUID sessionId, @AuthenticationPrincipal UserPrincipal currentUser) {
+        chunkedUploadService.cancelSession(sessionId, currentUser);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping
     public ResponseEntity<List<DocumentResponse>> getDocuments(@AuthenticationPrincipal UserPrincipal currentUser,
                                                                @RequestParam(required = false) String title,
-                                                               @RequestParam(required = false) DocumentCategory category) {
-        List<DocumentResponse> response = documentService.getDocuments(currentUser, title, category);
+                                                               @RequestParam(required = false) DocumentCategory category,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = "50") int limit) {
+        CursorPage<DocumentResponse> page = documentService.getDocuments(currentUser, title, category, cursor,
+                Math.max(1, Math.min(limit, 200)));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<DocumentResponse>> searchDocuments(@AuthenticationPrincipal UserPrincipal currentUser,
+                                                                  @RequestParam("q") String query,
+                                                                  @RequestParam(required = false) DocumentCategory category,
+                                                                  @RequestParam(defaultValue = "20") int limit) {
+        List<DocumentResponse> response = documentService.searchDocuments(currentUser, query, category,
+                Math.max(1, Math.min(limit, 100)));
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/archive")
+    public void downloadArchive(@AuthenticationPrincipal UserPrincipal currentUser,
+                                @RequestParam(required = false) List<UUID> ids,
+                                @RequestParam(required = false) String title,
+                                @RequestParam(required = false) DocumentCategory category,
+                                HttpServletResponse response) throws IOException {
+        documentArchiveService.writeArchive(currentUser, ids, title, category, response);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<DocumentResponse> getDocumentById(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal currentUser) {
         DocumentResponse response = documentService.getDocumentById(id, currentUser);
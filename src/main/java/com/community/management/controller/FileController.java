@@ -1,43 +1,115 @@
 package com.community.management.controller;
 
+import com.community.management.security.FileUrlSigner;
+import com.community.management.service.CompressedVariantService;
+import com.community.management.service.DocumentDownloadCounter;
+import com.community.management.service.FileDownloadService;
 import com.community.management.service.FileStorageService;
+import com.community.management.service.ImageVariantService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/files")
 public class FileController {
 
     @Autowired
-    @Qualifier("localFileStorageService")
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private CompressedVariantService compressedVariantService;
+
+    @Autowired
+    private DocumentDownloadCounter documentDownloadCounter;
+
+    @Autowired
+    private FileUrlSigner fileUrlSigner;
+
+    @Value("${app.files.require-signature:false}")
+    private boolean requireSignature;
+
     @GetMapping("/{fileName:.+}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String fileName, HttpServletRequest request) {
+    public void downloadFile(@PathVariable String fileName, @RequestParam(required = false) String size,
+                             @RequestParam(name = FileUrlSigner.EXPIRES_PARAM, required = false) String expires,
+                             @RequestParam(name = FileUrlSigner.SIGNATURE_PARAM, required = false) String signature,
+                             @RequestParam(name = FileUrlSigner.DOCUMENT_PARAM, required = false) String document,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Checked before touching storage, and without a token or user lookup
+        long validFor = fileUrlSigner.remainingValidity(fileName, expires, signature);
+        if (requireSignature && validFor < 0) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Download link is missing, invalid or expired.");
+            return;
+        }
+
         Resource resource = fileStorageService.loadFileAsResource(fileName);
 
-        String contentType = null;
-        try {
-            contentType = request.getServletContext().getMimeType(resource.getFile().getAbsolutePath());
-        } catch (IOException ex) {
-            // fallback to the default content type if type could not be determined
+        if (size != null) {
+            ImageVariantService.Variant variant = ImageVariantService.Variant.fromParameter(size);
+            Optional<Path> variantPath = imageVariantService.findVariant(fileName, variant);
+            if (variantPath.isPresent()) {
+                fileDownloadService.serve(new FileSystemResource(variantPath.get()),
+                        ImageVariantService.variantFileName(fileName, variant), validFor, request, response);
+                return;
+            }
         }
+        if (compressedVariantService.isCompressible(fileName)) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            // Ranges always address the uncompressed bytes, so a resumed download stays consistent
+            if (request.getHeader(HttpHeaders.RANGE) == null
+                    && CompressedVariantService.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+                Optional<Path> gzipPath = compressedVariantService.findGzipVariant(fileName, resource);
+                if (gzipPath.isPresent()) {
+                    resource = new FileSystemResource(gzipPath.get());
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                }
+            }
+        }
+        fileDownloadService.serve(resource, fileName, validFor, request, response);
+        if (isNewDownload(request, response)) {
+            documentDownloadCounter.recordDownload(parseDocumentId(document), fileName);
+        }
+    }
 
-        if (contentType == null) {
-            contentType = "application/octet-stream";
+    // Only a hint for the download counter, which checks it against the file; a malformed value is ignored
+    private static UUID parseDocumentId(String document) {
+        if (document == null) {
+            return null;
         }
+        try {
+            return UUID.fromString(document);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
+    // Full responses and the first slice of a ranged download count; revalidations and later ranges do not
+    private boolean isNewDownload(HttpServletRequest request, HttpServletResponse response) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return false;
+        }
+        if (response.getStatus() == HttpServletResponse.SC_OK) {
+            return true;
+        }
+        String contentRange = response.getHeader(HttpHeaders.CONTENT_RANGE);
+        return response.getStatus() == HttpServletResponse.SC_PARTIAL_CONTENT
+                && (contentRange == null || contentRange.startsWith("bytes 0-"));
     }
 }
@@ -0,0 +1,17 @@
+package com.community.management.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateNotificationRequest {
+    private UUID userId;
+    private String message;
+    private String type;
+    private UUID relatedEntityId;
+}
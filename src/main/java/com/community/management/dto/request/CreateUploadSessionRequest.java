@@ -0,0 +1,25 @@
+package com.community.management.dto.request;
+
+import com.community.management.entity.AccessLevel;
+import com.community.management.entity.DocumentCategory;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class CreateUploadSessionRequest {
+    @NotBlank
+    private String title;
+    private String description;
+    @NotNull
+    private DocumentCategory category;
+    @NotNull
+    private AccessLevel accessLevel;
+    @NotBlank
+    private String fileName;
+    private String contentType;
+    @NotNull
+    @Positive
+    private Long totalSize;
+}
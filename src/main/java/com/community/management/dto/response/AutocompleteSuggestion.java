@@ -0,0 +1,11 @@
+package com.community.management.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class AutocompleteSuggestion {
+    private String value;
+    private int count; // Public directory entries with this value
+}
@@ -0,0 +1,13 @@
+package com.community.management.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor; // Null on the last page
+}
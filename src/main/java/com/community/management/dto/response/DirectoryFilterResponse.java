@@ -0,0 +1,15 @@
+package com.community.management.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class DirectoryFilterResponse {
+    private int total; // Entries matching the filter, across all pages
+    private List<DirectoryEntryResponse> entries;
+    private List<FacetCount> skills;
+    private List<FacetCount> interests;
+}
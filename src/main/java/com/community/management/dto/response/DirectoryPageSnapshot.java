@@ -0,0 +1,16 @@
+package com.community.management.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of the directory listing as sent to clients, kept in the directory page cache.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DirectoryPageSnapshot {
+    private String body; // The JSON array of directory entries, already serialised
+    private String nextCursor;
+}
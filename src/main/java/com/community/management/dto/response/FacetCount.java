@@ -0,0 +1,11 @@
+package com.community.management.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class FacetCount {
+    private String value;
+    private int count; // Matching directory entries with this value
+}
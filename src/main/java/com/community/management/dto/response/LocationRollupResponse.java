@@ -0,0 +1,15 @@
+package com.community.management.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class LocationRollupResponse {
+    private String level; // all, state, district, city or communityName
+    private String value; // null for members who have not given this part of their location
+    private long count;
+    private List<LocationRollupResponse> children; // Next level down, largest first; null below the requested depth
+}
@@ -0,0 +1,14 @@
+package com.community.management.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class MemberSuggestionResponse {
+    private DirectoryEntryResponse member;
+    private double score; // Tie strength; only meaningful for ordering
+    private int sharedEvents;
+    private int sharedOpportunities;
+    private boolean sameCommunity; // Same community and district
+}
@@ -0,0 +1,18 @@
+package com.community.management.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+public class UploadSessionResponse {
+    private UUID id;
+    private String fileName;
+    private long totalSize;
+    private long receivedBytes;
+    private int recommendedChunkSize;
+    private LocalDateTime expiresAt;
+}
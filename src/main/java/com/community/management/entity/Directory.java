@@ -13,7 +13,9 @@ import java.util.UUID;
 
 @Data
 @Entity
-@Table(name = "directory")
+@Table(name = "directory", indexes = {
+        @Index(name = "idx_directory_public_display_name", columnList = "isPublic, displayName")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Directory {
 
@@ -13,7 +13,13 @@ import java.util.UUID;
 
 @Data
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        // Listing pages: newest first, with or without a category. Access levels are filtered while reading the index
+        @Index(name = "idx_documents_created_id", columnList = "createdAt, id"),
+        @Index(name = "idx_documents_category_created_id", columnList = "category, createdAt, id"),
+        @Index(name = "idx_documents_download_count", columnList = "downloadCount"),
+        @Index(name = "idx_documents_stored_file_name", columnList = "storedFileName")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Document {
 
@@ -35,9 +41,12 @@ public class Document {
     private AccessLevel accessLevel = AccessLevel.PUBLIC;
 
     private String fileType;
-    private String fileSize;
+    private Long fileSize; // Bytes
     private String fileUrl;
 
+    // The stored file name at the end of fileUrl, kept indexed so file lookups do not scan the table
+    private String storedFileName;
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "uploaded_by", nullable = false)
     @OnDelete(action = OnDeleteAction.CASCADE)
@@ -52,4 +61,10 @@ public class Document {
     @LastModifiedDate
     @Column(nullable = false)
     private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        storedFileName = fileUrl != null ? fileUrl.substring(fileUrl.lastIndexOf('/') + 1) : null;
+    }
 }
@@ -15,7 +15,9 @@ import java.util.UUID;
 
 @Data
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+        @Index(name = "idx_events_image_file_name", columnList = "imageFileName")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Event {
 
@@ -45,6 +47,10 @@ public class Event {
     private User createdBy;
 
     private String imageUrl;
+
+    // The stored file name at the end of imageUrl, kept indexed so file lookups do not scan the table
+    private String imageFileName;
+
     private boolean registrationRequired = false;
 
     @OneToMany(mappedBy = "event", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -57,4 +63,10 @@ public class Event {
     @LastModifiedDate
     @Column(nullable = false)
     private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        imageFileName = imageUrl != null ? imageUrl.substring(imageUrl.lastIndexOf('/') + 1) : null;
+    }
 }
@@ -0,0 +1,18 @@
+package com.community.management.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "file_access")
+public class FileAccess {
+
+    @Id
+    private String fileName;
+
+    @Column(nullable = false)
+    private LocalDateTime lastAccessedAt;
+}
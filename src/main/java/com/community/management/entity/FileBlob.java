@@ -0,0 +1,25 @@
+package com.community.management.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "file_blobs")
+public class FileBlob {
+
+    @Id
+    @Column(length = 80)
+    private String fileName; // <sha-256>.<ext>, shared by every upload with the same content
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private int referenceCount;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,43 @@
+package com.community.management.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Running total of the bytes a user's documents and avatar take up, kept in step with every store and delete.
+ */
+@Data
+@Entity
+@Table(name = "storage_usage")
+public class StorageUsage {
+
+    @Id
+    private UUID userId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+
+    @Column(nullable = false)
+    private long documentBytes;
+
+    @Column(nullable = false)
+    private int documentCount;
+
+    @Column(nullable = false)
+    private long avatarBytes;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public long getUsedBytes() {
+        return documentBytes + avatarBytes;
+    }
+}
@@ -19,7 +19,14 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // District alone and district with city are the usual drill-downs; state and city also come alone
+        @Index(name = "idx_users_district_city", columnList = "district, city"),
+        @Index(name = "idx_users_state", columnList = "state"),
+        @Index(name = "idx_users_city", columnList = "city"),
+        @Index(name = "idx_users_community_name", columnList = "communityName"),
+        @Index(name = "idx_users_avatar_file_name", columnList = "avatarFileName")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class User {
 
@@ -46,6 +53,9 @@ public class User {
     private String phone;
     private String avatarUrl;
 
+    // The stored file name at the end of avatarUrl, kept indexed so file lookups do not scan the table
+    private String avatarFileName;
+
     @Column(nullable = false)
     @Builder.Default
     private Boolean isActive = true;
@@ -63,4 +73,10 @@ public class User {
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<FamilyMember> familyMembers = new ArrayList<>();
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        avatarFileName = avatarUrl != null ? avatarUrl.substring(avatarUrl.lastIndexOf('/') + 1) : null;
+    }
 }
\ No newline at end of file
@@ -36,11 +36,18 @@ public class VolunteerOpportunity {
     private LocalDateTime dateTime;
     private Integer durationHours;
     private Integer maxVolunteers;
+
+    // Only moved by VolunteerSlotAllocator's compare-and-set, never by saving the entity
+    @Column(updatable = false)
     private Integer currentVolunteers = 0;
 
     @Enumerated(EnumType.STRING)
     private VolunteerStatus status = VolunteerStatus.ACTIVE;
 
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "created_by", nullable = false)
     @OnDelete(action = OnDeleteAction.CASCADE)
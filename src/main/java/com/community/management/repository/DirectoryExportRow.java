@@ -0,0 +1,16 @@
+package com.community.management.repository;
+
+/**
+ * The published fields of a public directory entry, as written by the directory export.
+ */
+public interface DirectoryExportRow {
+    String getDisplayName();
+    String getFullName();
+    String getContactInfo();
+    String getSkills();
+    String getInterests();
+    String getCity();
+    String getDistrict();
+    String getState();
+    String getCommunityName();
+}
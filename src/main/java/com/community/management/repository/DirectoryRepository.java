@@ -1,13 +1,77 @@
 package com.community.management.repository;
 
 import com.community.management.entity.Directory;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface DirectoryRepository extends JpaRepository<Directory, UUID> {
     Optional<Directory> findByUserId(UUID userId);
+
+    @Query("SELECT d FROM Directory d JOIN FETCH d.user u WHERE d.isPublic = true AND u.id IN :userIds")
+    List<Directory> findPublicByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648")) // Row-by-row streaming on MySQL
+    @Query("SELECT u.id AS userId, d.displayName AS displayName, u.fullName AS fullName, u.city AS city, " +
+            "u.district AS district, u.communityName AS communityName " +
+            "FROM Directory d JOIN d.user u WHERE d.isPublic = true")
+    Stream<MemberName> streamPublicNames();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT u.id AS userId, d.skills AS skills, d.interests AS interests, u.state AS state, " +
+            "u.district AS district, u.city AS city, u.communityName AS communityName " +
+            "FROM Directory d JOIN d.user u WHERE d.isPublic = true")
+    Stream<MemberTags> streamPublicTags();
+
+    // Only what members publish in their directory entry; the account email and phone on User are never read
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT d.displayName AS displayName, u.fullName AS fullName, d.contactInfo AS contactInfo, " +
+            "d.skills AS skills, d.interests AS interests, u.city AS city, u.district AS district, u.state AS state, " +
+            "u.communityName AS communityName " +
+            "FROM Directory d JOIN d.user u " +
+            "WHERE d.isPublic = true " +
+            "AND (:state IS NULL OR u.state LIKE CONCAT(:state, '%') ESCAPE '!') " +
+            "AND (:district IS NULL OR u.district LIKE CONCAT(:district, '%') ESCAPE '!') " +
+            "AND (:city IS NULL OR u.city LIKE CONCAT(:city, '%') ESCAPE '!') " +
+            "AND (:communityName IS NULL OR u.communityName LIKE CONCAT(:communityName, '%') ESCAPE '!') " +
+            "ORDER BY d.displayName, d.id")
+    Stream<DirectoryExportRow> streamPublicExport(@Param("state") String state,
+                                                  @Param("district") String district,
+                                                  @Param("city") String city,
+                                                  @Param("communityName") String communityName);
+
+    // Alphabetical by display name, keyed on (displayName, id); entries without a display name sort first.
+    // Location filters are prefix matches without LOWER() so they can use the users location indexes;
+    // the column collation already makes them case-insensitive.
+    @Query("SELECT d FROM Directory d JOIN FETCH d.user u " +
+            "WHERE d.isPublic = true " +
+            "AND (:displayName IS NULL OR LOWER(d.displayName) LIKE LOWER(CONCAT('%', :displayName, '%')) ESCAPE '!') " +
+            "AND (:state IS NULL OR u.state LIKE CONCAT(:state, '%') ESCAPE '!') " +
+            "AND (:district IS NULL OR u.district LIKE CONCAT(:district, '%') ESCAPE '!') " +
+            "AND (:city IS NULL OR u.city LIKE CONCAT(:city, '%') ESCAPE '!') " +
+            "AND (:communityName IS NULL OR u.communityName LIKE CONCAT(:communityName, '%') ESCAPE '!') " +
+            "AND (:cursorId IS NULL " +
+            "     OR (:cursorName IS NULL AND (d.displayName IS NOT NULL OR d.id > :cursorId)) " +
+            "     OR (d.displayName > :cursorName OR (d.displayName = :cursorName AND d.id > :cursorId))) " +
+            "ORDER BY d.displayName, d.id")
+    List<Directory> findPublicPage(@Param("displayName") String displayName,
+                                   @Param("state") String state,
+                                   @Param("district") String district,
+                                   @Param("city") String city,
+                                   @Param("communityName") String communityName,
+                                   @Param("cursorName") String cursorName,
+                                   @Param("cursorId") UUID cursorId,
+                                   Pageable pageable);
 }
@@ -0,0 +1,11 @@
+package com.community.management.repository;
+
+import java.util.UUID;
+
+/**
+ * A document id together with the stored file name at the end of its download URL.
+ */
+public interface DocumentFileRef {
+    UUID getId();
+    String getFileName();
+}
@@ -3,15 +3,77 @@ package com.community.management.repository;
 import com.community.management.entity.AccessLevel;
 import com.community.management.entity.Document;
 import com.community.management.entity.DocumentCategory;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, UUID> {
     List<Document> findByAccessLevelIn(List<AccessLevel> accessLevels);
+    @Query("SELECT d.id FROM Document d")
+    List<UUID> findAllIds();
+
+    List<Document> findByIdInAndAccessLevelIn(Collection<UUID> ids, List<AccessLevel> accessLevels);
+
+    // Newest first. idx_documents_created_id, or idx_documents_category_created_id with a category, returns rows
+    // already in this order, so a page reads backwards from the (createdAt, id) cursor and stops after limit
+    // matches instead of sorting every row at the caller's access levels
+    @Query("SELECT d FROM Document d JOIN FETCH d.uploadedBy " +
+            "WHERE d.accessLevel IN :accessLevels " +
+            "AND (:category IS NULL OR d.category = :category) " +
+            "AND (:title IS NULL OR LOWER(d.title) LIKE LOWER(CONCAT('%', :title, '%')) ESCAPE '!') " +
+            "AND (:cursorCreatedAt IS NULL OR d.createdAt < :cursorCreatedAt " +
+            "     OR (d.createdAt = :cursorCreatedAt AND d.id < :cursorId)) " +
+            "ORDER BY d.createdAt DESC, d.id DESC")
+    List<Document> findPage(@Param("accessLevels") Collection<AccessLevel> accessLevels,
+                            @Param("category") DocumentCategory category,
+                            @Param("title") String title,
+                            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                            @Param("cursorId") UUID cursorId,
+                            Pageable pageable);
     long countByCategory(DocumentCategory category);
     long countByAccessLevel(AccessLevel accessLevel);
+    long countByUploadedById(UUID userId);
+
+    @Query("SELECT COALESCE(SUM(d.fileSize), 0) FROM Document d WHERE d.uploadedBy.id = :userId")
+    long sumFileSizeByUploader(@Param("userId") UUID userId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648")) // Row-by-row streaming on MySQL
+    @Query("SELECT d.fileUrl FROM Document d WHERE d.fileUrl IS NOT NULL")
+    Stream<String> streamFileUrls();
+
+    @Query("SELECT d.storedFileName FROM Document d WHERE d.storedFileName IN :fileNames")
+    List<String> findReferencedFileNames(@Param("fileNames") Collection<String> fileNames);
+
+    @Query("SELECT d.id AS id, d.storedFileName AS fileName FROM Document d WHERE d.storedFileName IN :fileNames")
+    List<DocumentFileRef> findFileRefsByFileNames(@Param("fileNames") Collection<String> fileNames);
+
+    @Query("SELECT d.id AS id, d.storedFileName AS fileName FROM Document d WHERE d.id IN :ids")
+    List<DocumentFileRef> findFileRefsByIds(@Param("ids") Collection<UUID> ids);
+
+    // Fills the column for rows written before it existed
+    @Modifying
+    @Query(value = "UPDATE documents SET stored_file_name = SUBSTRING_INDEX(file_url, '/', -1) " +
+            "WHERE stored_file_name IS NULL AND file_url IS NOT NULL", nativeQuery = true)
+    int backfillStoredFileNames();
+
+    @Modifying
+    @Query("UPDATE Document d SET d.downloadCount = COALESCE(d.downloadCount, 0) + :delta WHERE d.id IN :ids")
+    int incrementDownloadCounts(@Param("ids") Collection<UUID> ids, @Param("delta") int delta);
+
+    @EntityGraph(attributePaths = "uploadedBy")
+    List<Document> findAllByOrderByDownloadCountDesc(Pageable pageable);
 }
\ No newline at end of file
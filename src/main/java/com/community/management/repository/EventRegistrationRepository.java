@@ -1,15 +1,42 @@
 package com.community.management.repository;
 
 import com.community.management.entity.EventRegistration;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface EventRegistrationRepository extends JpaRepository<EventRegistration, UUID> {
     Optional<EventRegistration> findByEventIdAndUserId(UUID eventId, UUID userId);
     List<EventRegistration> findByEventId(UUID eventId);
+
+    String REMINDER_TARGET_SELECT = "SELECT r.id AS registrationId, r.user.id AS userId, e.id AS targetId, " +
+            "e.title AS title, e.eventDate AS startsAt FROM EventRegistration r JOIN r.event e " +
+            "WHERE r.status <> com.community.management.entity.RegistrationStatus.CANCELLED " +
+            "AND e.status <> com.community.management.entity.EventStatus.CANCELLED ";
+
+    @Query(REMINDER_TARGET_SELECT + "AND e.eventDate > :now")
+    List<ReminderTarget> findUpcomingReminderTargets(@Param("now") LocalDateTime now);
+
+    @Query(REMINDER_TARGET_SELECT + "AND r.id IN :ids")
+    List<ReminderTarget> findReminderTargetsByIds(@Param("ids") Collection<UUID> ids);
+
+    @Query(REMINDER_TARGET_SELECT + "AND e.id = :eventId")
+    List<ReminderTarget> findReminderTargetsByEventId(@Param("eventId") UUID eventId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT r.user.id AS userId, r.event.id AS activityId FROM EventRegistration r " +
+            "WHERE r.status <> com.community.management.entity.RegistrationStatus.CANCELLED")
+    Stream<Participation> streamParticipations();
 }
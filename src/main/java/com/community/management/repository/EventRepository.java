@@ -2,14 +2,43 @@ package com.community.management.repository;
 
 import com.community.management.entity.Event;
 import com.community.management.entity.EventStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, UUID> {
     long countByStatus(EventStatus status);
     long countByEventDateAfter(LocalDateTime dateTime);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648")) // Row-by-row streaming on MySQL
+    @Query("SELECT e.imageUrl FROM Event e WHERE e.imageUrl IS NOT NULL")
+    Stream<String> streamImageUrls();
+
+    @Query("SELECT e.imageFileName FROM Event e WHERE e.imageFileName IN :fileNames")
+    List<String> findReferencedFileNames(@Param("fileNames") Collection<String> fileNames);
+
+    // Signed links that clients sent back before incoming image URLs were stripped of their query
+    @Modifying
+    @Query(value = "UPDATE events SET image_url = SUBSTRING_INDEX(image_url, '?', 1), " +
+            "image_file_name = SUBSTRING_INDEX(SUBSTRING_INDEX(image_url, '?', 1), '/', -1) " +
+            "WHERE image_url LIKE '%/api/files/%?%'", nativeQuery = true)
+    int stripSignedImageUrls();
+
+    // Fills the column for rows written before it existed
+    @Modifying
+    @Query(value = "UPDATE events SET image_file_name = SUBSTRING_INDEX(image_url, '/', -1) " +
+            "WHERE image_file_name IS NULL AND image_url IS NOT NULL", nativeQuery = true)
+    int backfillImageFileNames();
 }
\ No newline at end of file
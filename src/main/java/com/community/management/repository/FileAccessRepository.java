@@ -0,0 +1,28 @@
+package com.community.management.repository;
+
+import com.community.management.entity.FileAccess;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FileAccessRepository extends JpaRepository<FileAccess, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO file_access (file_name, last_accessed_at) VALUES (:fileName, :accessedAt) " +
+            "ON DUPLICATE KEY UPDATE last_accessed_at = GREATEST(last_accessed_at, VALUES(last_accessed_at))",
+            nativeQuery = true)
+    int recordAccess(@Param("fileName") String fileName, @Param("accessedAt") LocalDateTime accessedAt);
+
+    List<FileAccess> findByFileNameIn(Collection<String> fileNames);
+
+    @Modifying
+    @Query("DELETE FROM FileAccess a WHERE a.fileName = :fileName")
+    int deleteByFileName(@Param("fileName") String fileName);
+}
@@ -0,0 +1,36 @@
+package com.community.management.repository;
+
+import com.community.management.entity.FileBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    // Also waits for uploads that have taken a reference to the same content but not yet committed
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<FileBlob> findByFileNameIn(Collection<String> fileNames);
+
+    @Modifying
+    @Query(value = "INSERT INTO file_blobs (file_name, size, reference_count, created_at) " +
+            "VALUES (:fileName, :size, 1, NOW()) " +
+            "ON DUPLICATE KEY UPDATE reference_count = reference_count + 1", nativeQuery = true)
+    int acquireReference(@Param("fileName") String fileName, @Param("size") long size);
+
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.referenceCount = b.referenceCount - 1 " +
+            "WHERE b.fileName = :fileName AND b.referenceCount > 0")
+    int releaseReference(@Param("fileName") String fileName);
+
+    @Modifying
+    @Query("DELETE FROM FileBlob b WHERE b.fileName = :fileName AND b.referenceCount <= 0")
+    int deleteIfUnreferenced(@Param("fileName") String fileName);
+}
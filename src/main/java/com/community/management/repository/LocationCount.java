@@ -0,0 +1,12 @@
+package com.community.management.repository;
+
+/**
+ * Number of users with one combination of state, district, city and community.
+ */
+public interface LocationCount {
+    String getState();
+    String getDistrict();
+    String getCity();
+    String getCommunityName();
+    long getMembers();
+}
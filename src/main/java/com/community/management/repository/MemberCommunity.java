@@ -0,0 +1,12 @@
+package com.community.management.repository;
+
+import java.util.UUID;
+
+/**
+ * The community and district a member belongs to.
+ */
+public interface MemberCommunity {
+    UUID getUserId();
+    String getDistrict();
+    String getCommunityName();
+}
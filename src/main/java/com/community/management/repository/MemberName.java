@@ -0,0 +1,15 @@
+package com.community.management.repository;
+
+import java.util.UUID;
+
+/**
+ * The names and location of a public directory entry, as used by the in-memory directory indexes.
+ */
+public interface MemberName {
+    UUID getUserId();
+    String getDisplayName();
+    String getFullName();
+    String getCity();
+    String getDistrict();
+    String getCommunityName();
+}
@@ -0,0 +1,16 @@
+package com.community.management.repository;
+
+import java.util.UUID;
+
+/**
+ * The skills, interests and location of a public directory entry, as used by the directory tag index.
+ */
+public interface MemberTags {
+    UUID getUserId();
+    String getSkills();
+    String getInterests();
+    String getState();
+    String getDistrict();
+    String getCity();
+    String getCommunityName();
+}
@@ -2,8 +2,11 @@ package com.community.management.repository;
 
 import com.community.management.entity.Notification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,4 +15,8 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
     List<Notification> findByUserIdOrderByCreatedAtDesc(UUID userId);
     List<Notification> findByUserIdAndIsReadFalseOrderByCreatedAtDesc(UUID userId);
     long countByUserIdAndIsReadFalse(UUID userId);
+
+    @Query("SELECT n.user.id, n.relatedEntityId, MAX(n.createdAt) FROM Notification n " +
+            "WHERE n.type = :type AND n.createdAt >= :since GROUP BY n.user.id, n.relatedEntityId")
+    List<Object[]> findLatestByTypeSince(@Param("type") String type, @Param("since") LocalDateTime since);
 }
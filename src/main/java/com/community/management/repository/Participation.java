@@ -0,0 +1,11 @@
+package com.community.management.repository;
+
+import java.util.UUID;
+
+/**
+ * One member taking part in an event or volunteer opportunity.
+ */
+public interface Participation {
+    UUID getUserId();
+    UUID getActivityId();
+}
@@ -0,0 +1,15 @@
+package com.community.management.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Flat projection of a registration and the start time it should be reminded about.
+ */
+public interface ReminderTarget {
+    UUID getRegistrationId();
+    UUID getUserId();
+    UUID getTargetId();
+    String getTitle();
+    LocalDateTime getStartsAt();
+}
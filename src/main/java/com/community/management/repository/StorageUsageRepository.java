@@ -0,0 +1,34 @@
+package com.community.management.repository;
+
+import com.community.management.entity.StorageUsage;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StorageUsage s WHERE s.userId = :userId")
+    Optional<StorageUsage> findByUserIdForUpdate(@Param("userId") UUID userId);
+
+    @Query("SELECT s FROM StorageUsage s JOIN FETCH s.user " +
+            "ORDER BY (s.documentBytes + s.avatarBytes) DESC, s.userId")
+    List<StorageUsage> findTopConsumers(Pageable pageable);
+
+    // [documentBytes, avatarBytes, documentCount, users with a ledger row]
+    @Query("SELECT COALESCE(SUM(s.documentBytes), 0), COALESCE(SUM(s.avatarBytes), 0), " +
+            "COALESCE(SUM(s.documentCount), 0), COUNT(s) FROM StorageUsage s")
+    List<Object[]> sumUsage();
+
+    @Query("SELECT u.id FROM User u WHERE NOT EXISTS (SELECT 1 FROM StorageUsage s WHERE s.userId = u.id)")
+    List<UUID> findUserIdsWithoutUsage();
+}
@@ -0,0 +1,24 @@
+package com.community.management.repository;
+
+import com.community.management.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.receivedBytes = :receivedBytes, s.updatedAt = :updatedAt " +
+            "WHERE s.id = :id AND s.receivedBytes = :expectedOffset")
+    int advanceOffset(@Param("id") UUID id, @Param("expectedOffset") long expectedOffset,
+                      @Param("receivedBytes") long receivedBytes, @Param("updatedAt") LocalDateTime updatedAt);
+
+    List<UploadSession> findByUpdatedAtBefore(LocalDateTime cutoff);
+}
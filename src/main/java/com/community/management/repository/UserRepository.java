@@ -2,11 +2,22 @@ package com.community.management.repository;
 
 import com.community.management.entity.User;
 import com.community.management.entity.UserRole;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
@@ -17,4 +28,34 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     long countByIsActiveTrue();
     long countByRole(UserRole role);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findByIdForUpdate(@Param("id") UUID id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648")) // Row-by-row streaming on MySQL
+    @Query("SELECT u.avatarUrl FROM User u WHERE u.avatarUrl IS NOT NULL")
+    Stream<String> streamAvatarUrls();
+
+    @Query("SELECT u.state AS state, u.district AS district, u.city AS city, u.communityName AS communityName, " +
+            "COUNT(u) AS members FROM User u GROUP BY u.state, u.district, u.city, u.communityName")
+    List<LocationCount> countByLocation();
+
+    // Any consistent read fixes the transaction's snapshot under REPEATABLE READ; this one reads a single row
+    @Query(value = "SELECT 1 FROM users LIMIT 1", nativeQuery = true)
+    Integer startReadSnapshot();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT u.id AS userId, u.district AS district, u.communityName AS communityName FROM User u " +
+            "WHERE u.communityName IS NOT NULL")
+    Stream<MemberCommunity> streamCommunities();
+
+    @Query("SELECT u.avatarFileName FROM User u WHERE u.avatarFileName IN :fileNames")
+    List<String> findReferencedFileNames(@Param("fileNames") Collection<String> fileNames);
+
+    // Fills the column for rows written before it existed
+    @Modifying
+    @Query(value = "UPDATE users SET avatar_file_name = SUBSTRING_INDEX(avatar_url, '/', -1) " +
+            "WHERE avatar_file_name IS NULL AND avatar_url IS NOT NULL", nativeQuery = true)
+    int backfillAvatarFileNames();
 }
\ No newline at end of file
@@ -3,13 +3,40 @@ package com.community.management.repository;
 import com.community.management.entity.VolunteerOpportunity;
 import com.community.management.entity.VolunteerStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface VolunteerOpportunityRepository extends JpaRepository<VolunteerOpportunity, UUID> {
     List<VolunteerOpportunity> findByCreatedBy_Id(UUID userId);
     long countByStatus(VolunteerStatus status);
-}
\ No newline at end of file
+
+    @Query("SELECT o.version AS version, o.currentVolunteers AS currentVolunteers, " +
+            "o.maxVolunteers AS maxVolunteers, o.status AS status " +
+            "FROM VolunteerOpportunity o WHERE o.id = :id")
+    Optional<SlotState> findSlotStateById(@Param("id") UUID id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE VolunteerOpportunity o SET o.currentVolunteers = :currentVolunteers, o.status = :status, " +
+            "o.version = o.version + 1, o.updatedAt = :updatedAt " +
+            "WHERE o.id = :id AND o.version = :expectedVersion")
+    int compareAndSetSlots(@Param("id") UUID id,
+                           @Param("expectedVersion") Long expectedVersion,
+                           @Param("currentVolunteers") Integer currentVolunteers,
+                           @Param("status") VolunteerStatus status,
+                           @Param("updatedAt") LocalDateTime updatedAt);
+
+    interface SlotState {
+        Long getVersion();
+        Integer getCurrentVolunteers();
+        Integer getMaxVolunteers();
+        VolunteerStatus getStatus();
+    }
+}
@@ -1,16 +1,44 @@
 package com.community.management.repository;
 
 import com.community.management.entity.VolunteerRegistration;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface VolunteerRegistrationRepository extends JpaRepository<VolunteerRegistration, UUID> {
     Optional<VolunteerRegistration> findByOpportunityIdAndUserId(UUID opportunityId, UUID userId);
     List<VolunteerRegistration> findByUserId(UUID userId);
     List<VolunteerRegistration> findByOpportunityId(UUID opportunityId);
+
+    String REMINDER_TARGET_SELECT = "SELECT r.id AS registrationId, r.user.id AS userId, o.id AS targetId, " +
+            "o.title AS title, o.dateTime AS startsAt FROM VolunteerRegistration r JOIN r.opportunity o " +
+            "WHERE o.dateTime IS NOT NULL " +
+            "AND r.status <> com.community.management.entity.RegistrationStatus.CANCELLED " +
+            "AND o.status <> com.community.management.entity.VolunteerStatus.CANCELLED ";
+
+    @Query(REMINDER_TARGET_SELECT + "AND o.dateTime > :now")
+    List<ReminderTarget> findUpcomingReminderTargets(@Param("now") LocalDateTime now);
+
+    @Query(REMINDER_TARGET_SELECT + "AND r.id IN :ids")
+    List<ReminderTarget> findReminderTargetsByIds(@Param("ids") Collection<UUID> ids);
+
+    @Query(REMINDER_TARGET_SELECT + "AND o.id = :opportunityId")
+    List<ReminderTarget> findReminderTargetsByOpportunityId(@Param("opportunityId") UUID opportunityId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT r.user.id AS userId, r.opportunity.id AS activityId FROM VolunteerRegistration r " +
+            "WHERE r.status <> com.community.management.entity.RegistrationStatus.CANCELLED")
+    Stream<Participation> streamParticipations();
 }
@@ -0,0 +1,138 @@
+package com.community.management.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Signs download URLs for /api/files with an HMAC over the file name and an expiry time, so FileController
+ * can authorise a download without a token lookup or any database access.
+ * Expiry times are rounded up to the next whole TTL window, so every link to a file handed out within a
+ * window is the same URL and browsers and caches in front of the application can reuse the response.
+ * A link is therefore valid for between one and two TTLs.
+ */
+@Component
+public class FileUrlSigner {
+
+    public static final String EXPIRES_PARAM = "expires";
+    public static final String SIGNATURE_PARAM = "signature";
+    public static final String DOCUMENT_PARAM = "document";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String FILES_PATH = "/api/files/";
+
+    private final SecretKeySpec key;
+    private final Mac prototype;
+    private final long ttlSeconds;
+
+    public FileUrlSigner(@Value("${app.files.signing-secret:${app.jwt.secret}}") String secret,
+                         @Value("${app.files.signed-url-ttl-seconds:3600}") long ttlSeconds) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(key);
+        } catch (NoSuchAlgorithmException | InvalidKeyException ex) {
+            throw new IllegalStateException("Could not initialise the download URL signer", ex);
+        }
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * Appends an expiry and signature to a download URL of our own file endpoint. Other URLs, such as an
+     * event image hosted elsewhere, and null are returned unchanged.
+     */
+    public String sign(String fileUrl) {
+        if (fileUrl == null || !fileUrl.contains(FILES_PATH)) {
+            return fileUrl;
+        }
+        String plainUrl = unsigned(fileUrl);
+        String fileName = plainUrl.substring(plainUrl.lastIndexOf('/') + 1);
+        long now = System.currentTimeMillis() / 1000;
+        long expires = (now / ttlSeconds + 2) * ttlSeconds;
+        return plainUrl + "?" + EXPIRES_PARAM + "=" + expires + "&" + SIGNATURE_PARAM + "=" + signature(fileName, expires);
+    }
+
+    /**
+     * A download URL of our own file endpoint without its query, so a signed link a client sends back is
+     * stored as the plain URL. Other URLs and null are returned unchanged.
+     */
+    public static String unsigned(String fileUrl) {
+        if (fileUrl == null || !fileUrl.contains(FILES_PATH)) {
+            return fileUrl;
+        }
+        int end = fileUrl.length();
+        int query = fileUrl.indexOf('?');
+        int fragment = fileUrl.indexOf('#');
+        if (query >= 0) {
+            end = query;
+        }
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+        return fileUrl.substring(0, end);
+    }
+
+    /**
+     * Same as {@link #sign(String)} for a document's file. The document id is added, outside the signature,
+     * so the download is counted for that document even when its file is shared with other documents.
+     */
+    public String sign(String fileUrl, UUID documentId) {
+        String signed = sign(fileUrl);
+        if (signed == null || documentId == null || !signed.contains(FILES_PATH)) {
+            return signed;
+        }
+        return signed + "&" + DOCUMENT_PARAM + "=" + documentId;
+    }
+
+    /**
+     * Seconds the link stays valid, or -1 if the signature is missing, wrong or expired.
+     */
+    public long remainingValidity(String fileName, String expires, String signature) {
+        if (expires == null || signature == null) {
+            return -1;
+        }
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(expires);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+        long remaining = expiresAt - System.currentTimeMillis() / 1000;
+        if (remaining <= 0) {
+            return -1;
+        }
+        byte[] expected = signature(fileName, expiresAt).getBytes(StandardCharsets.US_ASCII);
+        // Constant-time comparison, so response timing reveals nothing about the correct signature
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII)) ? remaining : -1;
+    }
+
+    private String signature(String fileName, long expires) {
+        Mac mac = newMac();
+        byte[] digest = mac.doFinal((fileName + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    // Cloning the keyed prototype skips the key setup; Mac instances are not thread-safe, so each call gets its own
+    private Mac newMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException ex) {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Could not create the download URL MAC", e);
+            }
+        }
+    }
+}
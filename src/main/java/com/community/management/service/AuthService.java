@@ -29,6 +29,9 @@ public class AuthService {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
+    @Autowired
+    private LocationRollupService locationRollupService;
+
     public String login(LoginRequest loginRequest) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -55,6 +58,9 @@ public class AuthService {
         user.setRole(UserRole.MEMBER);
         user.setIsActive(true);
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        locationRollupService.memberAddedAsync(saved.getState(), saved.getDistrict(), saved.getCity(),
+                saved.getCommunityName());
+        return saved;
     }
 }
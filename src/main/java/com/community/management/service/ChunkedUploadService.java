@@ -0,0 +1,304 @@
+package com.community.management.service;
+
+import com.community.management.dto.request.CreateUploadSessionRequest;
+import com.community.management.dto.response.UploadSessionResponse;
+import com.community.management.entity.UploadSession;
+import com.community.management.entity.User;
+import com.community.management.exception.ConcurrencyConflictException;
+import com.community.management.exception.FileStorageException;
+import com.community.management.exception.ResourceNotFoundException;
+import com.community.management.exception.ValidationException;
+import com.community.management.repository.UploadSessionRepository;
+import com.community.management.repository.UserRepository;
+import com.community.management.security.UserPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resumable uploads for large documents. A client opens a session, PUTs the file in chunks at explicit
+ * offsets with a SHA-256 per chunk, and completes the session to create the Document. Each chunk is
+ * streamed from the request straight into the staging file through a fixed-size buffer, so memory per
+ * upload does not grow with the file; a chunk that fails its checksum is truncated away and can be resent.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    private final Path stagingLocation;
+    private final long maxFileSize;
+    private final int chunkSize;
+    private final long sessionTtlHours;
+
+    public ChunkedUploadService(@Value("${app.uploads.staging-dir:./uploads/staging}") String stagingDir,
+                                @Value("${app.uploads.max-file-size-mb:1024}") long maxFileSizeMb,
+                                @Value("${app.uploads.chunk-size-mb:8}") int chunkSizeMb,
+                                @Value("${app.uploads.session-ttl-hours:24}") long sessionTtlHours) {
+        this.stagingLocation = Paths.get(stagingDir).toAbsolutePath().normalize();
+        this.maxFileSize = maxFileSizeMb * 1024 * 1024;
+        this.chunkSize = chunkSizeMb * 1024 * 1024;
+        this.sessionTtlHours = sessionTtlHours;
+        try {
+            Files.createDirectories(this.stagingLocation);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not create the directory where uploads are staged.", ex);
+        }
+    }
+
+    @Transactional
+    public UploadSessionResponse createSession(CreateUploadSessionRequest request, UserPrincipal currentUser) {
+        if (request.getTotalSize() > maxFileSize) {
+            throw new ValidationException("File is larger than the " + (maxFileSize / (1024 * 1024)) + " MB limit.");
+        }
+        String fileExtension = FileStorageService.validatedExtension(request.getFileName(),
+                FileStorageService.DOCUMENT_EXTENSIONS);
+        User user = userRepository.findById(currentUser.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", currentUser.getId()));
+        // Checked again, under the ledger lock, when the upload completes
+        storageQuotaService.checkDocumentFits(user.getId(), request.getTotalSize());
+
+        UploadSession session = new UploadSession();
+        session.setUploadedBy(user);
+        session.setTitle(request.getTitle());
+        session.setDescription(request.getDescription());
+        session.setCategory(request.getCategory());
+        session.setAccessLevel(request.getAccessLevel());
+        session.setFileName(request.getFileName());
+        session.setFileExtension(fileExtension);
+        session.setContentType(request.getContentType());
+        session.setTotalSize(request.getTotalSize());
+        session.setReceivedBytes(0);
+
+        UploadSession savedSession = uploadSessionRepository.save(session);
+        return mapSessionToResponse(savedSession);
+    }
+
+    @Transactional(readOnly = true)
+    public UploadSessionResponse getSession(UUID sessionId, UserPrincipal currentUser) {
+        return mapSessionToResponse(findOwnedSession(sessionId, currentUser));
+    }
+
+    /**
+     * Appends one chunk at {@code offset}, which must equal the bytes received so far. No transaction is held
+     * while the body streams in; the file lock keeps two requests for the same session from writing at once.
+     */
+    public UploadSessionResponse appendChunk(UUID sessionId, long offset, String checksum, InputStream body,
+                                             UserPrincipal currentUser) {
+        if (checksum == null || checksum.isBlank()) {
+            throw new ValidationException("Upload-Checksum header with the chunk's SHA-256 is required.");
+        }
+        byte[] expectedDigest = parseChecksum(checksum);
+        UploadSession known = findOwnedSession(sessionId, currentUser);
+        Path stagedFile = stagedFile(sessionId);
+
+        // Only the first chunk creates the staging file, and only for a session that exists
+        StandardOpenOption[] options = known.getReceivedBytes() == 0
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(stagedFile, options)) {
+            tryLock(channel, sessionId); // Released when the channel closes
+            UploadSession session;
+            try {
+                // Read again under the lock: another request may have advanced or cancelled the session meanwhile
+                session = findOwnedSession(sessionId, currentUser);
+            } catch (ResourceNotFoundException ex) {
+                deleteStagedFile(sessionId);
+                throw ex;
+            }
+            if (offset != session.getReceivedBytes()) {
+                throw new ConcurrencyConflictException("Chunk offset " + offset + " does not match the "
+                        + session.getReceivedBytes() + " bytes received so far.");
+            }
+
+            MessageDigest digest = newSha256();
+            long end = writeChunk(channel, offset, session.getTotalSize(), body, digest);
+            if (!MessageDigest.isEqual(expectedDigest, digest.digest())) {
+                channel.truncate(offset);
+                throw new ValidationException("Chunk checksum does not match, please resend it.");
+            }
+            channel.force(false); // The recorded offset must never run ahead of the bytes on disk
+
+            LocalDateTime now = LocalDateTime.now();
+            Integer advanced = transactionTemplate.execute(status ->
+                    uploadSessionRepository.advanceOffset(sessionId, offset, end, now));
+            if (advanced == null || advanced == 0) {
+                throw new ConcurrencyConflictException("Upload session changed while the chunk was written.");
+            }
+            session.setReceivedBytes(end);
+            session.setUpdatedAt(now);
+            return mapSessionToResponse(session);
+        } catch (NoSuchFileException ex) {
+            throw new ConcurrencyConflictException("Staged data for upload " + sessionId + " is gone, please start a new upload.");
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not write chunk for upload " + sessionId + ". Please retry it.", ex);
+        }
+    }
+
+    private long writeChunk(FileChannel channel, long offset, long totalSize, InputStream body, MessageDigest digest)
+            throws IOException {
+        channel.truncate(offset); // Drop the tail of an earlier chunk that was interrupted mid-stream
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = offset;
+        int read;
+        while ((read = body.read(buffer.array(), 0, BUFFER_SIZE)) != -1) {
+            if (position + read > totalSize) {
+                channel.truncate(offset);
+                throw new ValidationException("Chunk runs past the declared file size of " + totalSize + " bytes.");
+            }
+            digest.update(buffer.array(), 0, read);
+            buffer.limit(read).position(0);
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+        return position;
+    }
+
+    /**
+     * Hands a fully received upload to the caller, which must store the staged file and then call
+     * {@link #finishSession(UploadSession)} in the same transaction.
+     */
+    @Transactional(readOnly = true)
+    public UploadSession findCompletedSession(UUID sessionId, UserPrincipal currentUser) {
+        UploadSession session = findOwnedSession(sessionId, currentUser);
+        if (session.getReceivedBytes() != session.getTotalSize()) {
+            throw new ValidationException("Upload is incomplete: " + session.getReceivedBytes() + " of "
+                    + session.getTotalSize() + " bytes received.");
+        }
+        return session;
+    }
+
+    public Path stagedFile(UUID sessionId) {
+        return stagingLocation.resolve(sessionId + ".part");
+    }
+
+    @Transactional
+    public void finishSession(UploadSession session) {
+        uploadSessionRepository.deleteById(session.getId());
+    }
+
+    @Transactional
+    public void cancelSession(UUID sessionId, UserPrincipal currentUser) {
+        UploadSession session = findOwnedSession(sessionId, currentUser);
+        uploadSessionRepository.delete(session);
+        deleteStagedFile(sessionId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.uploads.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void expireAbandonedSessions() {
+        List<UploadSession> expired = uploadSessionRepository.findByUpdatedAtBefore(
+                LocalDateTime.now().minusHours(sessionTtlHours));
+        for (UploadSession session : expired) {
+            uploadSessionRepository.delete(session);
+            deleteStagedFile(session.getId());
+        }
+        if (!expired.isEmpty()) {
+            logger.info("Expired {} abandoned upload sessions", expired.size());
+        }
+    }
+
+    private UploadSession findOwnedSession(UUID sessionId, UserPrincipal currentUser) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("UploadSession", "id", sessionId));
+        if (!session.getUploadedBy().getId().equals(currentUser.getId())) {
+            throw new AccessDeniedException("You do not have permission to use this upload session.");
+        }
+        return session;
+    }
+
+    private void deleteStagedFile(UUID sessionId) {
+        try {
+            Files.deleteIfExists(stagedFile(sessionId));
+        } catch (IOException ex) {
+            logger.warn("Could not delete staged upload {}: {}", sessionId, ex.getMessage());
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel, UUID sessionId) throws IOException {
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return lock;
+            }
+        } catch (OverlappingFileLockException ex) {
+            // Held by another request thread in this JVM
+        }
+        throw new ConcurrencyConflictException("Another chunk for upload " + sessionId + " is still being written.");
+    }
+
+    private static byte[] parseChecksum(String checksum) {
+        String hex = checksum.trim();
+        if (hex.regionMatches(true, 0, "sha256=", 0, 7)) {
+            hex = hex.substring(7);
+        }
+        try {
+            byte[] digest = HexFormat.of().parseHex(hex);
+            if (digest.length == 32) {
+                return digest;
+            }
+        } catch (IllegalArgumentException ex) {
+            // Reported below
+        }
+        throw new ValidationException("Upload-Checksum must be a hex-encoded SHA-256 digest.");
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new FileStorageException("SHA-256 is not available on this JVM.", ex);
+        }
+    }
+
+    private UploadSessionResponse mapSessionToResponse(UploadSession session) {
+        LocalDateTime lastActivity = session.getUpdatedAt() != null ? session.getUpdatedAt() : LocalDateTime.now();
+        return UploadSessionResponse.builder()
+                .id(session.getId())
+                .fileName(session.getFileName())
+                .totalSize(session.getTotalSize())
+                .receivedBytes(session.getReceivedBytes())
+                .recommendedChunkSize(chunkSize)
+                .expiresAt(lastActivity.plusHours(sessionTtlHours))
+                .build();
+    }
+}
@@ -0,0 +1,181 @@
+package com.community.management.service;
+
+import com.community.management.exception.ConcurrencyConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Moves files nobody has read for {@code file.cold-tier.cold-after-days} from the upload directory to the
+ * cold tier. Walks the upload directory in batches, looks up the last access of each batch in one query and
+ * only considers files stored before the cutoff, so files that were never read since tracking began still
+ * get a full period on the fast disk.
+ */
+@Service
+@ConditionalOnExpression("'${file.storage:local}' == 'local' and '${file.cold-tier.type:none}' != 'none'")
+public class ColdFileMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColdFileMigrator.class);
+    private static final Pattern STORED_NAME = Pattern.compile(
+            "^([0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|[0-9a-f]{64})(\\.[A-Za-z0-9]+)?$");
+
+    @Autowired
+    private LocalFileStorageService localFileStorageService;
+
+    @Autowired
+    private FileAccessTracker fileAccessTracker;
+
+    private final Path fileStorageLocation;
+    private final Set<Path> skippedDirectories;
+    private final Duration coldAfter;
+    private final int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Map<String, Object> lastReport = Map.of();
+
+    public ColdFileMigrator(@Value("${file.upload-dir:./uploads}") String uploadDir,
+                            @Value("${app.images.variant-dir:./uploads/variants}") String variantDir,
+                            @Value("${app.uploads.staging-dir:./uploads/staging}") String stagingDir,
+                            @Value("${file.cold-tier.cold-after-days:30}") long coldAfterDays,
+                            @Value("${file.cold-tier.batch-size:200}") int batchSize) {
+        this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.skippedDirectories = Set.of(Paths.get(variantDir).toAbsolutePath().normalize(),
+                Paths.get(stagingDir).toAbsolutePath().normalize());
+        this.coldAfter = Duration.ofDays(coldAfterDays);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${file.cold-tier.interval-ms:21600000}",
+            initialDelayString = "${file.cold-tier.initial-delay-ms:900000}")
+    public void scheduledMigration() {
+        try {
+            migrate();
+        } catch (ConcurrencyConflictException ex) {
+            logger.debug("Skipping scheduled cold tier migration: {}", ex.getMessage());
+        }
+    }
+
+    public Map<String, Object> migrate() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConcurrencyConflictException("A cold tier migration is already running.");
+        }
+        try {
+            Report report = new Report();
+            sweep(Instant.now().minus(coldAfter), report);
+            lastReport = report.toMap(localFileStorageService.getRehydratedFiles());
+            logger.info("Cold tier migration moved {} files ({} bytes, {} scanned)",
+                    report.migrated, report.bytesMigrated, report.scanned);
+            return lastReport;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getLastReport() {
+        return lastReport;
+    }
+
+    private void sweep(Instant cutoff, Report report) {
+        List<String> batch = new ArrayList<>(batchSize);
+        try {
+            Files.walkFileTree(fileStorageLocation, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    return skippedDirectories.contains(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String fileName = file.getFileName().toString();
+                    if (!attrs.isRegularFile() || !STORED_NAME.matcher(fileName).matches()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    report.scanned++;
+                    if (attrs.lastModifiedTime().toInstant().isAfter(cutoff)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    batch.add(fileName);
+                    if (batch.size() >= batchSize) {
+                        migrateBatch(batch, cutoff, report);
+                        batch.clear();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                    return FileVisitResult.CONTINUE; // Deleted or moved while we walked
+                }
+            });
+            if (!batch.isEmpty()) {
+                migrateBatch(batch, cutoff, report);
+            }
+        } catch (IOException ex) {
+            logger.error("Cold tier sweep of {} stopped early", fileStorageLocation, ex);
+        }
+    }
+
+    private void migrateBatch(List<String> fileNames, Instant cutoff, Report report) {
+        LocalDateTime accessCutoff = LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault());
+        Map<String, LocalDateTime> lastAccess = fileAccessTracker.lastAccess(fileNames);
+        for (String fileName : fileNames) {
+            LocalDateTime accessedAt = lastAccess.get(fileName);
+            if (accessedAt != null && accessedAt.isAfter(accessCutoff)) {
+                continue;
+            }
+            try {
+                long bytes = localFileStorageService.moveToColdTier(fileName);
+                if (bytes > 0) {
+                    report.migrated++;
+                    report.bytesMigrated += bytes;
+                }
+            } catch (IOException | RuntimeException ex) {
+                report.failed++;
+                logger.warn("Could not move {} to the cold tier: {}", fileName, ex.getMessage());
+            }
+        }
+    }
+
+    private static final class Report {
+        private final Instant startedAt = Instant.now();
+        private long scanned;
+        private long migrated;
+        private long bytesMigrated;
+        private long failed;
+
+        private Map<String, Object> toMap(long rehydratedFiles) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("startedAt", startedAt.toString());
+            map.put("durationMillis", Duration.between(startedAt, Instant.now()).toMillis());
+            map.put("filesScanned", scanned);
+            map.put("filesMigrated", migrated);
+            map.put("bytesMigrated", bytesMigrated);
+            map.put("failures", failed);
+            map.put("rehydratedSinceStart", rehydratedFiles);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.community.management.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Cheaper storage that LocalFileStorageService moves rarely read files to. Files keep their stored name,
+ * and a file is only ever in one tier at a time, apart from the moment of a move.
+ */
+public interface ColdStorageTier {
+
+    /**
+     * Copies {@code source} into the tier. The copy must be complete and durable when this returns,
+     * because the caller deletes the local file next.
+     */
+    void store(String fileName, Path source) throws IOException;
+
+    /**
+     * Copies the file into {@code target}, replacing it, with the last-modified time it had when stored, so
+     * a rehydrated file keeps its ETag. Returns false if the tier does not have the file.
+     */
+    boolean retrieve(String fileName, Path target) throws IOException;
+
+    void delete(String fileName) throws IOException;
+}
@@ -0,0 +1,197 @@
+package com.community.management.service;
+
+import com.community.management.exception.FileStorageException;
+import com.community.management.util.TransactionCallbacks;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps gzip copies of compressible uploads (plain text, CSV, SVG) next to the image variants, so that
+ * FileController can answer {@code Accept-Encoding: gzip} without compressing on the request thread.
+ * Copies are made at maximum compression on a bounded pool after upload; a download that finds none
+ * is served uncompressed and queues it.
+ */
+@Service
+public class CompressedVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompressedVariantService.class);
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of("txt", "csv", "svg", "json", "xml");
+    private static final String GZIP_SUFFIX = ".gz";
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${app.compression.min-size-bytes:1024}")
+    private long minSize;
+
+    private final Path variantLocation;
+    private final ThreadPoolExecutor workers;
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+
+    // Shares the image variant directory, which the orphan collector already leaves alone
+    public CompressedVariantService(@Value("${app.images.variant-dir:./uploads/variants}") String variantDir,
+                                    @Value("${app.compression.workers:1}") int workerCount,
+                                    @Value("${app.compression.queue-capacity:200}") int queueCapacity) {
+        this.variantLocation = Paths.get(variantDir).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.variantLocation);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not create the directory where compressed variants will be stored.", ex);
+        }
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    public boolean isCompressible(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 && COMPRESSIBLE_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Queues the gzip copy of a stored file once the surrounding transaction commits.
+     */
+    public void generateVariantAsync(String fileName) {
+        if (!isCompressible(fileName)) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> enqueue(fileName));
+    }
+
+    /**
+     * Returns the gzip copy of {@code original} if it has been generated, otherwise queues it and returns empty.
+     * Files too small to gain from compression never get one.
+     */
+    public Optional<Path> findGzipVariant(String fileName, Resource original) throws IOException {
+        if (!isCompressible(fileName) || original.contentLength() < minSize) {
+            return Optional.empty();
+        }
+        Path path = variantPath(fileName);
+        if (Files.exists(path)) {
+            return Optional.of(path);
+        }
+        enqueue(fileName);
+        return Optional.empty();
+    }
+
+    public void deleteVariant(String fileName) {
+        if (!isCompressible(fileName)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(variantPath(fileName));
+        } catch (IOException ex) {
+            logger.warn("Could not delete gzip variant of {}: {}", fileName, ex.getMessage());
+        }
+    }
+
+    /**
+     * True if the {@code Accept-Encoding} header accepts gzip, either by name or through {@code *}.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        accepted = Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException ex) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private void enqueue(String fileName) {
+        if (!inProgress.add(fileName)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(fileName);
+                } catch (Exception ex) {
+                    logger.warn("Could not generate gzip variant of {}: {}", fileName, ex.getMessage());
+                } finally {
+                    inProgress.remove(fileName);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inProgress.remove(fileName);
+            logger.debug("Compression queue is full, skipping {}", fileName);
+        }
+    }
+
+    private void generate(String fileName) throws IOException {
+        Path target = variantPath(fileName);
+        if (Files.exists(target)) {
+            return;
+        }
+
+        Resource original = fileStorageService.loadFileAsResource(fileName);
+        Path temp = Files.createTempFile(variantLocation, "variant-", ".tmp");
+        try {
+            try (InputStream in = original.getInputStream();
+                 OutputStream out = new BestCompressionGzipOutputStream(Files.newOutputStream(temp))) {
+                in.transferTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path variantPath(String fileName) {
+        return variantLocation.resolve(fileName + GZIP_SUFFIX).normalize();
+    }
+
+    // Compression runs once per file and is read many times, so the slowest level is worth it
+    private static final class BestCompressionGzipOutputStream extends GZIPOutputStream {
+        private BestCompressionGzipOutputStream(OutputStream out) throws IOException {
+            super(out, 64 * 1024);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
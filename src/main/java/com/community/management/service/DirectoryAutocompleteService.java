@@ -0,0 +1,523 @@
+package com.community.management.service;
+
+import com.community.management.dto.response.AutocompleteSuggestion;
+import com.community.management.exception.ValidationException;
+import com.community.management.repository.DirectoryRepository;
+import com.community.management.repository.MemberName;
+import com.community.management.util.StartupRebuild;
+import com.community.management.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * As-you-type suggestions for directory names and locations, from one in-memory prefix trie per field.
+ * Every trie node caches the most frequent values below it, so a lookup walks the typed prefix and returns
+ * that cache without visiting the subtree. A change re-ranks only the nodes on the paths of the values it
+ * touches. Names can be found by the start of any of their first few words.
+ */
+@Service
+public class DirectoryAutocompleteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryAutocompleteService.class);
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final int MAX_NAME_WORDS = 4;
+
+    public enum Field {
+        NAME("name"), CITY("city"), DISTRICT("district"), COMMUNITY_NAME("communityName");
+
+        private final String parameter;
+
+        Field(String parameter) {
+            this.parameter = parameter;
+        }
+
+        public static Field fromParameter(String parameter) {
+            for (Field field : values()) {
+                if (field.parameter.equals(parameter)) {
+                    return field;
+                }
+            }
+            throw new ValidationException("Unknown autocomplete field: " + parameter);
+        }
+    }
+
+    @Autowired
+    private DirectoryRepository directoryRepository;
+
+    private final StartupRebuild startupRebuild;
+    private final int topK;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Field, PrefixTrie> tries = new EnumMap<>(Field.class);
+    private final Map<UUID, Entry> entries = new HashMap<>();
+
+    public DirectoryAutocompleteService(PlatformTransactionManager transactionManager,
+                                        @Value("${app.directory.autocomplete.top-k:10}") int topK) {
+        this.startupRebuild = new StartupRebuild(transactionManager, "directory autocomplete tries");
+        this.topK = topK;
+        for (Field field : Field.values()) {
+            tries.put(field, new PrefixTrie(topK, field == Field.NAME));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        startupRebuild.start("directory-autocomplete-rebuild", () -> {
+            setDeferRanking(true);
+            try (Stream<MemberName> names = directoryRepository.streamPublicNames()) {
+                names.forEach(this::putStreamed);
+            } finally {
+                setDeferRanking(false);
+            }
+            logger.info("Directory autocomplete rebuilt in {} ms for {} members",
+                    System.currentTimeMillis() - started, size());
+        });
+    }
+
+    /**
+     * Adds, updates or, when it is no longer public, removes a directory entry once the surrounding
+     * transaction commits.
+     */
+    public void updateAsync(UUID userId, String displayName, String city, String district, String communityName,
+                            boolean isPublic) {
+        TransactionCallbacks.afterCommit(() -> {
+            startupRebuild.markChanged(userId);
+            if (isPublic) {
+                put(userId, new Entry(displayName, city, district, communityName));
+            } else {
+                remove(userId);
+            }
+        });
+    }
+
+    /**
+     * Moves a member that is already indexed, or that the startup rebuild has yet to reach, to a new
+     * location; members without a public entry are ignored.
+     */
+    public void updateLocationAsync(UUID userId, String city, String district, String communityName) {
+        TransactionCallbacks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                if (!moveLocked(userId, city, district, communityName)) {
+                    startupRebuild.defer(userId, () -> moveLocked(userId, city, district, communityName));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void removeAsync(UUID userId) {
+        TransactionCallbacks.afterCommit(() -> {
+            startupRebuild.markChanged(userId);
+            remove(userId);
+        });
+    }
+
+    /**
+     * The most common values of {@code field} that start with {@code prefix}, or with a word of it for names.
+     */
+    public List<AutocompleteSuggestion> suggest(Field field, String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return tries.get(field).suggest(fold(prefix), Math.min(limit, topK));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putStreamed(MemberName name) {
+        lock.writeLock().lock();
+        try {
+            startupRebuild.load(name.getUserId(), () -> putLocked(name.getUserId(), new Entry(name.getDisplayName(),
+                    name.getCity(), name.getDistrict(), name.getCommunityName())));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean moveLocked(UUID userId, String city, String district, String communityName) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return false;
+        }
+        putLocked(userId, new Entry(entry.displayName(), city, district, communityName));
+        return true;
+    }
+
+    private void put(UUID userId, Entry entry) {
+        lock.writeLock().lock();
+        try {
+            putLocked(userId, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(UUID userId) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(userId);
+            if (previous != null) {
+                for (Field field : Field.values()) {
+                    tries.get(field).remove(previous.value(field));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Only fields whose value changed touch their trie
+    private void putLocked(UUID userId, Entry entry) {
+        Entry previous = entries.put(userId, entry);
+        for (Field field : Field.values()) {
+            String oldValue = previous != null ? previous.value(field) : null;
+            if (previous != null && Objects.equals(oldValue, entry.value(field))) {
+                continue;
+            }
+            tries.get(field).remove(oldValue);
+            tries.get(field).add(entry.value(field));
+        }
+    }
+
+    // Ranking each insert would re-sort the upper nodes once per member; a bulk load ranks every node once at the end
+    private void setDeferRanking(boolean defer) {
+        lock.writeLock().lock();
+        try {
+            for (PrefixTrie trie : tries.values()) {
+                trie.deferRanking = defer;
+                if (!defer) {
+                    trie.rankAll(trie.root);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static String fold(String value) {
+        if (value == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        folded = WHITESPACE.matcher(folded.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        return folded.length() > MAX_KEY_LENGTH ? folded.substring(0, MAX_KEY_LENGTH) : folded;
+    }
+
+    private record Entry(String displayName, String city, String district, String communityName) {
+        private String value(Field field) {
+            return switch (field) {
+                case NAME -> displayName;
+                case CITY -> city;
+                case DISTRICT -> district;
+                case COMMUNITY_NAME -> communityName;
+            };
+        }
+    }
+
+    /**
+     * A distinct value, counted once per member that has it. Spellings that differ only in case, accents or
+     * spacing share one value, shown as first seen.
+     */
+    private static final class Term {
+        private final String value;
+        private final String key;
+        private int count;
+
+        private Term(String value, String key) {
+            this.value = value;
+            this.key = key;
+        }
+    }
+
+    private static final class PrefixTrie {
+        private static final Comparator<Term> RANKING = Comparator.<Term>comparingInt(term -> term.count).reversed()
+                .thenComparing(term -> term.key);
+
+        private final int topK;
+        private final boolean wordStarts;
+        private final Node root = new Node();
+        private final Map<String, Term> terms = new HashMap<>();
+        private boolean deferRanking;
+
+        private PrefixTrie(int topK, boolean wordStarts) {
+            this.topK = topK;
+            this.wordStarts = wordStarts;
+        }
+
+        private List<AutocompleteSuggestion> suggest(String prefix, int limit) {
+            Node node = root;
+            int at = 0;
+            while (at < prefix.length()) {
+                Node child = node.child(prefix.charAt(at));
+                if (child == null) {
+                    return List.of();
+                }
+                int common = commonPrefix(child.label, prefix, at);
+                if (at + common == prefix.length()) {
+                    node = child; // The prefix ends on or inside this edge
+                    break;
+                }
+                if (common < child.label.length()) {
+                    return List.of();
+                }
+                at += common;
+                node = child;
+            }
+            List<AutocompleteSuggestion> suggestions = new ArrayList<>(Math.min(limit, node.top.length));
+            for (int i = 0; i < node.top.length && i < limit; i++) {
+                suggestions.add(AutocompleteSuggestion.builder()
+                        .value(node.top[i].value)
+                        .count(node.top[i].count)
+                        .build());
+            }
+            return suggestions;
+        }
+
+        private void add(String value) {
+            String key = fold(value);
+            if (key.isEmpty()) {
+                return;
+            }
+            Term term = terms.computeIfAbsent(key, k -> new Term(WHITESPACE.matcher(value.trim()).replaceAll(" "), k));
+            term.count++;
+            for (String path : paths(key)) {
+                update(path, term);
+            }
+        }
+
+        private void remove(String value) {
+            Term term = terms.get(fold(value));
+            if (term == null) {
+                return;
+            }
+            if (--term.count == 0) {
+                terms.remove(term.key);
+            }
+            for (String path : paths(term.key)) {
+                update(path, term);
+            }
+        }
+
+        // The whole value, plus for names each later word start, so "sha" finds "Ravi Sharma"
+        private List<String> paths(String key) {
+            List<String> paths = new ArrayList<>();
+            paths.add(key);
+            if (wordStarts) {
+                for (int at = key.indexOf(' '); at >= 0 && paths.size() < MAX_NAME_WORDS; at = key.indexOf(' ', at + 1)) {
+                    paths.add(key.substring(at + 1));
+                }
+            }
+            return paths;
+        }
+
+        // Attaches or detaches the term at the end of the path, splitting or merging edges so that every node
+        // either ends a value or branches, then re-ranks the path bottom-up. A node's top values are always
+        // among its own and its children's, so each node needs only its children's caches.
+        private void update(String path, Term term) {
+            List<Node> nodes = new ArrayList<>();
+            nodes.add(root);
+            Node node = root;
+            int at = 0;
+            while (at < path.length()) {
+                Node child = node.child(path.charAt(at));
+                if (child == null) {
+                    if (term.count == 0) {
+                        return;
+                    }
+                    child = node.addChild(new Node(path.substring(at)));
+                } else {
+                    int common = commonPrefix(child.label, path, at);
+                    if (common < child.label.length()) {
+                        if (term.count == 0) {
+                            return;
+                        }
+                        child = node.split(child, common);
+                    }
+                }
+                nodes.add(child);
+                at += child.label.length();
+                node = child;
+            }
+            if (term.count > 0) {
+                node.attach(term);
+            } else {
+                node.detach(term);
+            }
+            for (int i = nodes.size() - 1; i >= 0; i--) {
+                Node current = nodes.get(i);
+                if (i > 0 && current.ending.length == 0 && current.children.length <= 1) {
+                    nodes.get(i - 1).removeChild(current);
+                    if (current.children.length == 1) { // Fold the pass-through node into its only child
+                        Node only = current.children[0];
+                        only.label = current.label + only.label;
+                        nodes.get(i - 1).addChild(only);
+                    }
+                } else if (!deferRanking) {
+                    current.top = rank(current);
+                }
+            }
+        }
+
+        private static int commonPrefix(String label, String key, int from) {
+            int length = Math.min(label.length(), key.length() - from);
+            int i = 0;
+            while (i < length && label.charAt(i) == key.charAt(from + i)) {
+                i++;
+            }
+            return i;
+        }
+
+        private void rankAll(Node node) {
+            for (Node child : node.children) {
+                rankAll(child);
+            }
+            node.top = rank(node);
+        }
+
+        // Merges the node's own values with its children's caches, which are already ranked, taking the best
+        // head each round until topK are chosen
+        private Term[] rank(Node node) {
+            Term[][] lists = new Term[node.children.length + 1][];
+            lists[0] = node.ending.length > 1 ? sorted(node.ending) : node.ending;
+            for (int i = 0; i < node.children.length; i++) {
+                lists[i + 1] = node.children[i].top;
+            }
+            int[] heads = new int[lists.length];
+            List<Term> top = new ArrayList<>(topK);
+            while (top.size() < topK) {
+                int best = -1;
+                for (int i = 0; i < lists.length; i++) {
+                    if (heads[i] < lists[i].length
+                            && (best < 0 || RANKING.compare(lists[i][heads[i]], lists[best][heads[best]]) < 0)) {
+                        best = i;
+                    }
+                }
+                if (best < 0) {
+                    break;
+                }
+                Term term = lists[best][heads[best]++];
+                if (!top.contains(term)) { // Names reached through more than one word
+                    top.add(term);
+                }
+            }
+            return top.toArray(new Term[0]);
+        }
+
+        private static Term[] sorted(Term[] terms) {
+            Term[] sorted = terms.clone();
+            Arrays.sort(sorted, RANKING);
+            return sorted;
+        }
+    }
+
+    // A radix tree node: the edge leading here carries a whole run of characters, so a long value with no
+    // branching costs one node rather than one per character. Children are kept in sorted parallel arrays
+    // keyed by the first character of their edge.
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Term[] NO_TERMS = new Term[0];
+
+        private String label;
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private Term[] ending = NO_TERMS; // Values whose path ends here
+        private Term[] top = NO_TERMS;
+
+        private Node() {
+            this("");
+        }
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char c) {
+            int at = Arrays.binarySearch(keys, c);
+            return at >= 0 ? children[at] : null;
+        }
+
+        private Node addChild(Node child) {
+            int at = -Arrays.binarySearch(keys, child.label.charAt(0)) - 1;
+            char[] grownKeys = new char[keys.length + 1];
+            Node[] grownChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, grownKeys, 0, at);
+            System.arraycopy(children, 0, grownChildren, 0, at);
+            grownKeys[at] = child.label.charAt(0);
+            grownChildren[at] = child;
+            System.arraycopy(keys, at, grownKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, grownChildren, at + 1, children.length - at);
+            keys = grownKeys;
+            children = grownChildren;
+            return child;
+        }
+
+        private void removeChild(Node child) {
+            int at = Arrays.binarySearch(keys, child.label.charAt(0));
+            char[] shrunkKeys = new char[keys.length - 1];
+            Node[] shrunkChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, shrunkKeys, 0, at);
+            System.arraycopy(children, 0, shrunkChildren, 0, at);
+            System.arraycopy(keys, at + 1, shrunkKeys, at, keys.length - at - 1);
+            System.arraycopy(children, at + 1, shrunkChildren, at, children.length - at - 1);
+            keys = shrunkKeys;
+            children = shrunkChildren;
+        }
+
+        // Puts a new node after the first {@code length} characters of a child's edge and returns it
+        private Node split(Node child, int length) {
+            removeChild(child);
+            Node middle = new Node(child.label.substring(0, length));
+            child.label = child.label.substring(length);
+            middle.addChild(child);
+            middle.top = child.top;
+            return addChild(middle);
+        }
+
+        private void attach(Term term) {
+            if (!Arrays.asList(ending).contains(term)) {
+                ending = Arrays.copyOf(ending, ending.length + 1);
+                ending[ending.length - 1] = term;
+            }
+        }
+
+        private void detach(Term term) {
+            ending = Arrays.stream(ending).filter(t -> t != term).toArray(Term[]::new);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.community.management.service;
+
+import com.community.management.exception.FileStorageException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Cold tier on a second directory, typically a larger and slower disk or a network mount.
+ */
+@Service
+@ConditionalOnProperty(name = "file.cold-tier.type", havingValue = "directory")
+public class DirectoryColdStorageTier implements ColdStorageTier {
+
+    private static final Pattern SHARDABLE_NAME = Pattern.compile("^[0-9a-fA-F]{4}[0-9a-fA-F-]*(\\.[A-Za-z0-9]+)?$");
+
+    private final Path location;
+
+    public DirectoryColdStorageTier(@Value("${file.cold-tier.directory:./uploads-cold}") String directory) {
+        this.location = Paths.get(directory).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.location);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not create the cold storage directory.", ex);
+        }
+    }
+
+    @Override
+    public void store(String fileName, Path source) throws IOException {
+        Path target = path(fileName);
+        Files.createDirectories(target.getParent());
+        // Copied under a temporary name first, so a crash never leaves a truncated file under the real one
+        Path temp = Files.createTempFile(target.getParent(), "cold-", ".tmp");
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public boolean retrieve(String fileName, Path target) throws IOException {
+        try {
+            Files.copy(path(fileName), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            return true;
+        } catch (NoSuchFileException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(String fileName) throws IOException {
+        Files.deleteIfExists(path(fileName));
+    }
+
+    // Same ab/cd/ sharding as the upload directory, so no single directory grows to millions of entries
+    private Path path(String fileName) {
+        if (!SHARDABLE_NAME.matcher(fileName).matches()) {
+            return location.resolve(fileName).normalize();
+        }
+        String prefix = fileName.substring(0, 4).toLowerCase(Locale.ROOT);
+        return location.resolve(prefix.substring(0, 2)).resolve(prefix.substring(2, 4)).resolve(fileName);
+    }
+}
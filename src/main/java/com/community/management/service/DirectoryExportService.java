@@ -0,0 +1,274 @@
+package com.community.management.service;
+
+import com.community.management.exception.ValidationException;
+import com.community.management.repository.DirectoryExportRow;
+import com.community.management.repository.DirectoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Streams the public directory as CSV or vCard straight into the response. Rows are read through a
+ * forward-only MySQL cursor and written one at a time, so memory stays the same however large the
+ * directory is. Only public entries are exported, with the contact details members chose to publish in
+ * their entry; the account email and phone number are never included.
+ */
+@Service
+public class DirectoryExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryExportService.class);
+    private static final String[] CSV_HEADER = {"Name", "Full name", "Phone", "Email", "Other contact", "City",
+            "District", "State", "Community", "Skills", "Interests"};
+    private static final Pattern PHONE_NUMBER = Pattern.compile("\\+[0-9][0-9 ]*");
+    private static final int VCARD_LINE_OCTETS = 75;
+
+    public enum Format {
+        CSV("text/csv", "csv"), VCARD("text/vcard", "vcf");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public static Format fromParameter(String value) {
+            if (value != null) {
+                for (Format format : values()) {
+                    if (format.extension.equalsIgnoreCase(value) || format.name().equalsIgnoreCase(value)) {
+                        return format;
+                    }
+                }
+            }
+            throw new ValidationException("format must be 'csv' or 'vcard'.");
+        }
+    }
+
+    @Autowired
+    private DirectoryRepository directoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public DirectoryExportService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void writeExport(Format format, String state, String district, String city, String communityName,
+                            HttpServletResponse response) throws IOException {
+        response.setContentType(format.contentType + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"directory." + format.extension + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 16 * 1024);
+        long started = System.currentTimeMillis();
+        long[] written = {0};
+        try {
+            if (format == Format.CSV) {
+                out.write('\uFEFF'); // Lets spreadsheet programs detect UTF-8
+                writeCsvRecord(out, CSV_HEADER);
+            }
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<DirectoryExportRow> rows = directoryRepository.streamPublicExport(
+                        DirectoryService.likePattern(state), DirectoryService.likePattern(district),
+                        DirectoryService.likePattern(city), DirectoryService.likePattern(communityName))) {
+                    rows.forEach(row -> {
+                        try {
+                            if (format == Format.CSV) {
+                                writeCsvRow(out, row);
+                            } else {
+                                writeVCard(out, row);
+                            }
+                            written[0]++;
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    });
+                }
+            });
+            out.flush();
+        } catch (UncheckedIOException ex) {
+            // Usually the client going away; the response is committed, so there is nothing left to report to it
+            logger.warn("Directory export stopped after {} entries: {}", written[0], ex.getCause().getMessage());
+            return;
+        }
+        logger.info("Exported {} directory entries as {} in {} ms", written[0], format,
+                System.currentTimeMillis() - started);
+    }
+
+    private void writeCsvRow(Writer out, DirectoryExportRow row) throws IOException {
+        Contact contact = parseContact(row.getContactInfo());
+        writeCsvRecord(out, new String[]{name(row), row.getFullName(), contact.phone, contact.email, contact.other,
+                row.getCity(), row.getDistrict(), row.getState(), row.getCommunityName(), row.getSkills(),
+                row.getInterests()});
+    }
+
+    private static void writeCsvRecord(Writer out, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeCsvField(out, fields[i]);
+        }
+        out.write("\r\n");
+    }
+
+    // RFC 4180 quoting. A leading =, +, - or @ is prefixed with ' so spreadsheets do not run it as a formula.
+    // Only a + followed by nothing but digits and spaces, such as +91 98765 43210, is left alone: with any
+    // operator or bracket after it, as in +1-2, the cell would still be evaluated.
+    private static void writeCsvField(Writer out, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        char first = value.charAt(0);
+        if ((first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r')
+                && !PHONE_NUMBER.matcher(value).matches()) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private void writeVCard(Writer out, DirectoryExportRow row) throws IOException {
+        Contact contact = parseContact(row.getContactInfo());
+        String name = name(row);
+        writeVCardLine(out, "BEGIN:VCARD");
+        writeVCardLine(out, "VERSION:3.0");
+        writeVCardLine(out, "FN:" + escapeVCard(name != null ? name : ""));
+        writeVCardLine(out, "N:" + escapeVCard(row.getFullName() != null ? row.getFullName() : name != null ? name : "")
+                + ";;;;");
+        if (contact.phone != null) {
+            writeVCardLine(out, "TEL;TYPE=CELL:" + escapeVCard(contact.phone));
+        }
+        if (contact.email != null) {
+            writeVCardLine(out, "EMAIL;TYPE=INTERNET:" + escapeVCard(contact.email));
+        }
+        if (row.getCity() != null || row.getDistrict() != null || row.getState() != null) {
+            // Post office box; extended address; street; locality; region; postal code; country
+            writeVCardLine(out, "ADR;TYPE=HOME:;" + escapeVCard(row.getDistrict()) + ";;" + escapeVCard(row.getCity())
+                    + ";" + escapeVCard(row.getState()) + ";;");
+        }
+        if (row.getCommunityName() != null) {
+            writeVCardLine(out, "ORG:" + escapeVCard(row.getCommunityName()));
+        }
+        List<String> notes = new ArrayList<>();
+        if (row.getSkills() != null && !row.getSkills().isBlank()) {
+            notes.add("Skills: " + row.getSkills().trim());
+        }
+        if (row.getInterests() != null && !row.getInterests().isBlank()) {
+            notes.add("Interests: " + row.getInterests().trim());
+        }
+        if (contact.other != null) {
+            notes.add("Contact: " + contact.other);
+        }
+        if (!notes.isEmpty()) {
+            writeVCardLine(out, "NOTE:" + escapeVCard(String.join("\n", notes)));
+        }
+        writeVCardLine(out, "END:VCARD");
+    }
+
+    // Folds lines longer than 75 octets as RFC 6350 asks, never inside a UTF-8 sequence
+    private static void writeVCardLine(Writer out, String line) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int length = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (octets + length > VCARD_LINE_OCTETS) {
+                out.write("\r\n ");
+                octets = 1;
+            }
+            out.write(line, i, Character.charCount(codePoint));
+            octets += length;
+            i += Character.charCount(codePoint);
+        }
+        out.write("\r\n");
+    }
+
+    private static String escapeVCard(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,")
+                .replace("\r\n", "\\n").replace("\n", "\\n").replace("\r", "\\n");
+    }
+
+    private static String name(DirectoryExportRow row) {
+        return row.getDisplayName() != null && !row.getDisplayName().isBlank() ? row.getDisplayName() : row.getFullName();
+    }
+
+    /**
+     * Contact info is stored as JSON such as {"phone": "...", "email": "..."}; older entries may hold plain
+     * text, which is exported as it is.
+     */
+    private Contact parseContact(String contactInfo) {
+        Contact contact = new Contact();
+        if (contactInfo == null || contactInfo.isBlank()) {
+            return contact;
+        }
+        JsonNode json;
+        try {
+            json = objectMapper.readTree(contactInfo);
+        } catch (JsonProcessingException ex) {
+            json = null;
+        }
+        if (json == null || !json.isObject()) {
+            contact.other = contactInfo.trim();
+            return contact;
+        }
+        List<String> other = new ArrayList<>();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = json.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String key = field.getKey().toLowerCase(Locale.ROOT);
+            String value = field.getValue().isValueNode() ? field.getValue().asText() : field.getValue().toString();
+            if (value.isBlank()) {
+                continue;
+            }
+            if (contact.phone == null && (key.contains("phone") || key.contains("mobile") || key.equals("tel"))) {
+                contact.phone = value.trim();
+            } else if (contact.email == null && key.contains("email")) {
+                contact.email = value.trim();
+            } else {
+                other.add(field.getKey() + ": " + value.trim());
+            }
+        }
+        contact.other = other.isEmpty() ? null : String.join("; ", other);
+        return contact;
+    }
+
+    private static final class Contact {
+        private String phone;
+        private String email;
+        private String other;
+    }
+}
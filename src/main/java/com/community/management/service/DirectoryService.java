@@ -1,45 +1,186 @@
 package com.community.management.service;
 
 import com.community.management.dto.request.UpdateDirectoryEntryRequest;
+import com.community.management.dto.response.AutocompleteSuggestion;
+import com.community.management.dto.response.CursorPage;
 import com.community.management.dto.response.DirectoryEntryResponse;
+import com.community.management.dto.response.DirectoryFilterResponse;
+import com.community.management.dto.response.LocationRollupResponse;
+import com.community.management.dto.response.MemberSuggestionResponse;
 import com.community.management.entity.Directory;
 import com.community.management.entity.User;
 import com.community.management.exception.ResourceNotFoundException;
+import com.community.management.exception.ValidationException;
 import com.community.management.repository.DirectoryRepository;
 import com.community.management.repository.UserRepository;
 import com.community.management.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class DirectoryService {
 
+    private static final int FACET_LIMIT = 20;
+
     @Autowired
     private DirectoryRepository directoryRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MemberNameIndex memberNameIndex;
+
+    @Autowired
+    private DirectoryAutocompleteService directoryAutocompleteService;
+
+    @Autowired
+    private DirectoryTagIndex directoryTagIndex;
+
+    @Autowired
+    private LocationRollupService locationRollupService;
+
+    @Autowired
+    private DirectorySnapshotCache directorySnapshotCache;
+
+    @Autowired
+    private MemberSuggestionService memberSuggestionService;
+
     @Transactional(readOnly = true)
-    public List<DirectoryEntryResponse> getAllDirectoryEntries(String displayName, String city, String state, String district, String communityName) {
-        List<Directory> entries = directoryRepository.findAll();
-
-        return entries.stream()
-                .filter(Directory::isPublic) // Only show public entries by default
-                .filter(entry -> displayName == null || entry.getDisplayName().toLowerCase().contains(displayName.toLowerCase()))
-                .filter(entry -> city == null || (entry.getUser().getCity() != null && entry.getUser().getCity().toLowerCase().contains(city.toLowerCase())))
-                .filter(entry -> state == null || (entry.getUser().getState() != null && entry.getUser().getState().toLowerCase().contains(state.toLowerCase())))
-                .filter(entry -> district == null || (entry.getUser().getDistrict() != null && entry.getUser().getDistrict().toLowerCase().contains(district.toLowerCase())))
-                .filter(entry -> communityName == null || (entry.getUser().getCommunityName() != null && entry.getUser().getCommunityName().toLowerCase().contains(communityName.toLowerCase())))
+    public CursorPage<DirectoryEntryResponse> getAllDirectoryEntries(String displayName, String city, String state, String district,
+                                                                     String communityName, String cursor, int limit) {
+        String cursorName = null;
+        UUID cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            cursorId = UUID.fromString(parts[0]);
+            cursorName = parts.length > 1 ? parts[1] : null;
+        }
+
+        // One row more than requested tells us whether there is a next page without a count query
+        List<Directory> entries = directoryRepository.findPublicPage(likePattern(displayName), likePattern(state),
+                likePattern(district), likePattern(city), likePattern(communityName), cursorName, cursorId,
+                PageRequest.of(0, limit + 1));
+        boolean hasMore = entries.size() > limit;
+        if (hasMore) {
+            entries = entries.subList(0, limit);
+        }
+
+        Directory last = entries.isEmpty() ? null : entries.get(entries.size() - 1);
+        return CursorPage.<DirectoryEntryResponse>builder()
+                .items(entries.stream().map(this::mapDirectoryToResponse).collect(Collectors.toList()))
+                .nextCursor(hasMore ? encodeCursor(last) : null)
+                .build();
+    }
+
+    /**
+     * Typo-tolerant search over display names and full names, most similar first.
+     */
+    @Transactional(readOnly = true)
+    public List<DirectoryEntryResponse> searchByName(String query, int limit) {
+        List<UUID> ranked = memberNameIndex.search(query, limit);
+        if (ranked.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Directory> entries = directoryRepository.findPublicByUserIdIn(ranked).stream()
+                .collect(Collectors.toMap(entry -> entry.getUser().getId(), Function.identity()));
+        return ranked.stream()
+                .map(entries::get)
+                .filter(Objects::nonNull) // Made private or deleted since it was indexed
                 .map(this::mapDirectoryToResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Public entries with the given skills and interests, all or any of them, in the given location,
+     * with the most common skills and interests among the matches.
+     */
+    @Transactional(readOnly = true)
+    public DirectoryFilterResponse filterByTags(List<String> skills, List<String> interests, String match, String state,
+                                                String district, String city, String communityName, int offset, int limit) {
+        boolean matchAll;
+        if (match == null || match.equalsIgnoreCase("all")) {
+            matchAll = true;
+        } else if (match.equalsIgnoreCase("any")) {
+            matchAll = false;
+        } else {
+            throw new ValidationException("match must be 'all' or 'any'.");
+        }
+        Map<DirectoryTagIndex.Facet, String> locations = new EnumMap<>(DirectoryTagIndex.Facet.class);
+        putIfPresent(locations, DirectoryTagIndex.Facet.STATE, state);
+        putIfPresent(locations, DirectoryTagIndex.Facet.DISTRICT, district);
+        putIfPresent(locations, DirectoryTagIndex.Facet.CITY, city);
+        putIfPresent(locations, DirectoryTagIndex.Facet.COMMUNITY_NAME, communityName);
+
+        DirectoryTagIndex.Result result = directoryTagIndex.filter(skills, interests, matchAll, locations, offset, limit,
+                FACET_LIMIT);
+        List<DirectoryEntryResponse> entries = List.of();
+        if (!result.userIds().isEmpty()) {
+            Map<UUID, Directory> found = directoryRepository.findPublicByUserIdIn(result.userIds()).stream()
+                    .collect(Collectors.toMap(entry -> entry.getUser().getId(), Function.identity()));
+            entries = result.userIds().stream()
+                    .map(found::get)
+                    .filter(Objects::nonNull)
+                    .map(this::mapDirectoryToResponse)
+                    .collect(Collectors.toList());
+        }
+        return DirectoryFilterResponse.builder()
+                .total(result.total())
+                .entries(entries)
+                .skills(result.facets().get(DirectoryTagIndex.Facet.SKILL))
+                .interests(result.facets().get(DirectoryTagIndex.Facet.INTEREST))
+                .build();
+    }
+
+    /**
+     * Members the current user may know from shared events, volunteering and community, strongest tie first.
+     * Only members with a public directory entry are suggested.
+     */
+    @Transactional(readOnly = true)
+    public List<MemberSuggestionResponse> suggestMembers(UserPrincipal currentUser, int limit) {
+        // Ask for more than needed, since members with private entries are dropped below
+        List<MemberSuggestionService.Suggestion> suggestions = memberSuggestionService.suggest(currentUser.getId(), limit * 2);
+        if (suggestions.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Directory> entries = directoryRepository.findPublicByUserIdIn(suggestions.stream()
+                        .map(MemberSuggestionService.Suggestion::userId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(entry -> entry.getUser().getId(), Function.identity()));
+        return suggestions.stream()
+                .filter(suggestion -> entries.containsKey(suggestion.userId()))
+                .limit(limit)
+                .map(suggestion -> MemberSuggestionResponse.builder()
+                        .member(mapDirectoryToResponse(entries.get(suggestion.userId())))
+                        .score(suggestion.score())
+                        .sharedEvents(suggestion.sharedEvents())
+                        .sharedOpportunities(suggestion.sharedOpportunities())
+                        .sameCommunity(suggestion.sameCommunity())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    public List<AutocompleteSuggestion> autocomplete(String field, String prefix, int limit) {
+        return directoryAutocompleteService.suggest(DirectoryAutocompleteService.Field.fromParameter(field), prefix, limit);
+    }
+
+    public LocationRollupResponse getLocationRollup(String state, String district, String city, int depth) {
+        return locationRollupService.getRollup(state, district, city, depth);
+    }
+
     @Transactional(readOnly = true)
     public DirectoryEntryResponse getDirectoryEntryById(UUID entryId) {
         Directory directory = directoryRepository.findById(entryId)
@@ -72,6 +213,14 @@ public class DirectoryService {
         if (request.getIsPublic() != null) directory.setPublic(request.getIsPublic());
 
         Directory updatedDirectory = directoryRepository.save(directory);
+        directorySnapshotCache.bumpVersion();
+        User user = updatedDirectory.getUser();
+        memberNameIndex.updateAsync(currentUser.getId(), updatedDirectory.getDisplayName(), user.getFullName(),
+                updatedDirectory.isPublic());
+        directoryAutocompleteService.updateAsync(currentUser.getId(), updatedDirectory.getDisplayName(), user.getCity(),
+                user.getDistrict(), user.getCommunityName(), updatedDirectory.isPublic());
+        directoryTagIndex.updateAsync(currentUser.getId(), updatedDirectory.getSkills(), updatedDirectory.getInterests(),
+                user.getState(), user.getDistrict(), user.getCity(), user.getCommunityName(), updatedDirectory.isPublic());
         return mapDirectoryToResponse(updatedDirectory);
     }
 
@@ -83,7 +232,44 @@ public class DirectoryService {
         newEntry.setUser(user);
         newEntry.setDisplayName(user.getFullName()); // Default display name
         newEntry.setPublic(true); // Default to public
-        return directoryRepository.save(newEntry);
+        Directory saved = directoryRepository.save(newEntry);
+        directorySnapshotCache.bumpVersion();
+        memberNameIndex.updateAsync(userId, saved.getDisplayName(), user.getFullName(), true);
+        directoryAutocompleteService.updateAsync(userId, saved.getDisplayName(), user.getCity(), user.getDistrict(),
+                user.getCommunityName(), true);
+        directoryTagIndex.updateAsync(userId, saved.getSkills(), saved.getInterests(), user.getState(),
+                user.getDistrict(), user.getCity(), user.getCommunityName(), true);
+        return saved;
+    }
+
+    private static void putIfPresent(Map<DirectoryTagIndex.Facet, String> locations, DirectoryTagIndex.Facet facet,
+                                     String value) {
+        if (value != null && !value.isBlank()) {
+            locations.put(facet, value);
+        }
+    }
+
+    static String likePattern(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    // The id comes first so that a display name containing the separator survives the round trip
+    private static String encodeCursor(Directory last) {
+        String value = last.getDisplayName() != null ? last.getId() + "|" + last.getDisplayName() : last.getId().toString();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            UUID.fromString(parts[0]);
+            return parts;
+        } catch (IllegalArgumentException ex) {
+            throw new ValidationException("Invalid cursor.");
+        }
     }
 
     private DirectoryEntryResponse mapDirectoryToResponse(Directory directory) {
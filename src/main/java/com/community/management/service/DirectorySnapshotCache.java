@@ -0,0 +1,122 @@
+package com.community.management.service;
+
+import com.community.management.dto.response.CursorPage;
+import com.community.management.dto.response.DirectoryEntryResponse;
+import com.community.management.dto.response.DirectoryPageSnapshot;
+import com.community.management.util.TransactionCallbacks;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Supplier;
+
+/**
+ * Serialised pages of the directory listing, cached in Redis under a directory version stamp.
+ * The version is bumped on every change to a directory entry or to the user fields it shows, so a page
+ * cached under the current version is still correct and a client holding the current version as its ETag
+ * can be answered with 304 Not Modified from a single Redis read. Old versions are never invalidated
+ * explicitly; they expire with the cache TTL.
+ * A change bumps the version both just before and just after its transaction commits, and a page is only
+ * cached if the version did not move while it was read, so no page built from data older than a commit
+ * is ever stored under a version issued after it.
+ */
+@Service
+public class DirectorySnapshotCache {
+
+    public static final long UNKNOWN_VERSION = -1;
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectorySnapshotCache.class);
+    private static final String VERSION_KEY = "directory:version";
+    private static final String CACHE_NAME = "directoryPages";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * The current directory version, or {@link #UNKNOWN_VERSION} if Redis cannot be reached, in which
+     * case callers should neither cache nor send an ETag.
+     */
+    public long currentVersion() {
+        try {
+            String version = redisTemplate.opsForValue().get(VERSION_KEY);
+            if (version == null) {
+                // Start from the clock, so a version lost with a Redis restart is never issued again
+                redisTemplate.opsForValue().setIfAbsent(VERSION_KEY, Long.toString(System.currentTimeMillis()));
+                version = redisTemplate.opsForValue().get(VERSION_KEY);
+            }
+            return version != null ? Long.parseLong(version) : UNKNOWN_VERSION;
+        } catch (RuntimeException ex) {
+            logger.warn("Could not read the directory version: {}", ex.getMessage());
+            return UNKNOWN_VERSION;
+        }
+    }
+
+    public static String etag(long version) {
+        return "\"directory-" + version + "\"";
+    }
+
+    /**
+     * Marks every cached directory page as outdated. Inside a transaction the version moves both before and
+     * after the commit.
+     */
+    public void bumpVersion() {
+        TransactionCallbacks.beforeAndAfterCommit(this::increment);
+    }
+
+    /**
+     * The cached page for these parameters under the given version, or the one built by the loader.
+     */
+    public DirectoryPageSnapshot getPage(long version, String key, Supplier<CursorPage<DirectoryEntryResponse>> loader) {
+        Cache cache = version != UNKNOWN_VERSION ? cacheManager.getCache(CACHE_NAME) : null;
+        String cacheKey = version + ":" + key;
+        if (cache != null) {
+            try {
+                DirectoryPageSnapshot cached = cache.get(cacheKey, DirectoryPageSnapshot.class);
+                if (cached != null) {
+                    return cached;
+                }
+            } catch (RuntimeException ex) {
+                logger.warn("Could not read a cached directory page: {}", ex.getMessage());
+            }
+        }
+
+        CursorPage<DirectoryEntryResponse> page = loader.get();
+        DirectoryPageSnapshot snapshot;
+        try {
+            snapshot = new DirectoryPageSnapshot(objectMapper.writeValueAsString(page.getItems()), page.getNextCursor());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialise a directory page", ex);
+        }
+        if (cache != null && currentVersion() == version) {
+            try {
+                cache.put(cacheKey, snapshot);
+            } catch (RuntimeException ex) {
+                logger.warn("Could not cache a directory page: {}", ex.getMessage());
+            }
+        }
+        return snapshot;
+    }
+
+    private void increment() {
+        try {
+            if (redisTemplate.opsForValue().increment(VERSION_KEY) == 1) {
+                // The key had gone; move on past anything issued before it was lost
+                redisTemplate.opsForValue().set(VERSION_KEY, Long.toString(System.currentTimeMillis()));
+            }
+        } catch (RuntimeException ex) {
+            logger.error("Could not bump the directory version; cached directory pages may be stale", ex);
+        }
+    }
+}
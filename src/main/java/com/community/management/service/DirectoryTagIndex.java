@@ -0,0 +1,393 @@
+package com.community.management.service;
+
+import com.community.management.dto.response.FacetCount;
+import com.community.management.repository.DirectoryRepository;
+import com.community.management.repository.MemberTags;
+import com.community.management.util.CompressedBitmap;
+import com.community.management.util.StartupRebuild;
+import com.community.management.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory tag dictionaries and bitmaps for filtering the directory by skill, interest and location.
+ * The free-text skills and interests of each public entry are split into normalised tags, and every tag,
+ * like every location value, keeps a compressed bitmap of the members that have it. A filter is then a
+ * handful of bitmap intersections and unions, and facet counts are intersection sizes, so neither touches
+ * the database. Members are identified by small ordinals that are reused after removal to keep the bitmaps dense.
+ */
+@Service
+public class DirectoryTagIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryTagIndex.class);
+    private static final Pattern TAG_SEPARATORS = Pattern.compile("[,;|\\n]+");
+    private static final Pattern WRAPPING = Pattern.compile("^[\\s\\[\\]{}\"']+|[\\s\\[\\]{}\"']+$");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_TAGS_PER_FIELD = 50;
+    private static final int MAX_TAG_LENGTH = 64;
+
+    public enum Facet {
+        SKILL, INTEREST, STATE, DISTRICT, CITY, COMMUNITY_NAME;
+
+        private boolean isLocation() {
+            return this != SKILL && this != INTEREST;
+        }
+    }
+
+    public record Result(int total, List<UUID> userIds, Map<Facet, List<FacetCount>> facets) {
+    }
+
+    @Autowired
+    private DirectoryRepository directoryRepository;
+
+    private final StartupRebuild startupRebuild;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Facet, Map<String, Tag>> dictionaries = new EnumMap<>(Facet.class);
+    private final CompressedBitmap allMembers = new CompressedBitmap();
+    private final Map<UUID, Member> members = new HashMap<>();
+    private final List<UUID> membersByOrdinal = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+    public DirectoryTagIndex(PlatformTransactionManager transactionManager) {
+        this.startupRebuild = new StartupRebuild(transactionManager, "directory tag index");
+        for (Facet facet : Facet.values()) {
+            dictionaries.put(facet, new HashMap<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        startupRebuild.start("directory-tag-index-rebuild", () -> {
+            try (Stream<MemberTags> rows = directoryRepository.streamPublicTags()) {
+                rows.forEach(this::putStreamed);
+            }
+            logger.info("Directory tag index rebuilt in {} ms: {} members, {} skills, {} interests",
+                    System.currentTimeMillis() - started, size(), dictionarySize(Facet.SKILL),
+                    dictionarySize(Facet.INTEREST));
+        });
+    }
+
+    /**
+     * Adds, updates or, when it is no longer public, removes a directory entry once the surrounding
+     * transaction commits.
+     */
+    public void updateAsync(UUID userId, String skills, String interests, String state, String district, String city,
+                            String communityName, boolean isPublic) {
+        Map<Facet, List<String>> values = tagValues(skills, interests, state, district, city, communityName);
+        TransactionCallbacks.afterCommit(() -> {
+            startupRebuild.markChanged(userId);
+            if (isPublic) {
+                put(userId, values);
+            } else {
+                remove(userId);
+            }
+        });
+    }
+
+    /**
+     * Moves a member that is already indexed, or that the startup rebuild has yet to reach, to a new
+     * location; members without a public entry are ignored.
+     */
+    public void updateLocationAsync(UUID userId, String state, String district, String city, String communityName) {
+        TransactionCallbacks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                if (!moveLocked(userId, state, district, city, communityName)) {
+                    startupRebuild.defer(userId, () -> moveLocked(userId, state, district, city, communityName));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void removeAsync(UUID userId) {
+        TransactionCallbacks.afterCommit(() -> {
+            startupRebuild.markChanged(userId);
+            remove(userId);
+        });
+    }
+
+    /**
+     * Members with the given skills and interests, all of them or any of them, in the given locations.
+     * Returns one page of user ids in index order, the total, and the most common skills and interests
+     * among all matches.
+     */
+    public Result filter(Collection<String> skills, Collection<String> interests, boolean matchAll,
+                         Map<Facet, String> locations, int offset, int limit, int facetLimit) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap matches = allMembers;
+            for (Map.Entry<Facet, String> location : locations.entrySet()) {
+                matches = matches.and(bitmap(location.getKey(), location.getValue()));
+            }
+
+            List<CompressedBitmap> tagged = new ArrayList<>();
+            for (String skill : skills) {
+                if (!skill.isBlank()) {
+                    tagged.add(bitmap(Facet.SKILL, skill));
+                }
+            }
+            for (String interest : interests) {
+                if (!interest.isBlank()) {
+                    tagged.add(bitmap(Facet.INTEREST, interest));
+                }
+            }
+            if (!tagged.isEmpty()) {
+                if (matchAll) {
+                    // Smallest first, so every later intersection works on as little as possible
+                    tagged.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+                    for (CompressedBitmap bitmap : tagged) {
+                        matches = matches.and(bitmap);
+                    }
+                } else {
+                    CompressedBitmap any = new CompressedBitmap();
+                    for (CompressedBitmap bitmap : tagged) {
+                        any = any.or(bitmap);
+                    }
+                    matches = matches.and(any);
+                }
+            }
+
+            List<UUID> page = new ArrayList<>(limit);
+            int[] position = {0};
+            matches.forEach(ordinal -> {
+                if (position[0]++ >= offset && page.size() < limit) {
+                    page.add(membersByOrdinal.get(ordinal));
+                }
+            });
+
+            Map<Facet, List<FacetCount>> facets = new EnumMap<>(Facet.class);
+            facets.put(Facet.SKILL, facetCounts(Facet.SKILL, matches, facetLimit));
+            facets.put(Facet.INTEREST, facetCounts(Facet.INTEREST, matches, facetLimit));
+            return new Result(matches.cardinality(), page, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return members.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int dictionarySize(Facet facet) {
+        lock.readLock().lock();
+        try {
+            return dictionaries.get(facet).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private CompressedBitmap bitmap(Facet facet, String value) {
+        Tag tag = dictionaries.get(facet).get(normalize(value));
+        return tag != null ? tag.members : new CompressedBitmap();
+    }
+
+    private List<FacetCount> facetCounts(Facet facet, CompressedBitmap matches, int facetLimit) {
+        List<FacetCount> counts = new ArrayList<>();
+        if (matches.isEmpty()) {
+            return counts;
+        }
+        for (Tag tag : dictionaries.get(facet).values()) {
+            int count = matches.andCardinality(tag.members);
+            if (count > 0) {
+                counts.add(FacetCount.builder().value(tag.value).count(count).build());
+            }
+        }
+        counts.sort(Comparator.comparingInt(FacetCount::getCount).reversed().thenComparing(FacetCount::getValue));
+        return counts.size() > facetLimit ? new ArrayList<>(counts.subList(0, facetLimit)) : counts;
+    }
+
+    private void putStreamed(MemberTags row) {
+        lock.writeLock().lock();
+        try {
+            startupRebuild.load(row.getUserId(), () -> putLocked(row.getUserId(), tagValues(row.getSkills(),
+                    row.getInterests(), row.getState(), row.getDistrict(), row.getCity(), row.getCommunityName())));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Keeps the member's skills and interests and replaces their location tags
+    private boolean moveLocked(UUID userId, String state, String district, String city, String communityName) {
+        Member member = members.get(userId);
+        if (member == null) {
+            return false;
+        }
+        Map<Facet, List<String>> values = tagValues(null, null, state, district, city, communityName);
+        for (Tag tag : member.tags) {
+            if (!tag.facet.isLocation()) {
+                values.get(tag.facet).add(tag.value);
+            }
+        }
+        putLocked(userId, values);
+        return true;
+    }
+
+    private void put(UUID userId, Map<Facet, List<String>> values) {
+        lock.writeLock().lock();
+        try {
+            putLocked(userId, values);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(UUID userId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(UUID userId, Map<Facet, List<String>> values) {
+        Member previous = members.get(userId);
+        int ordinal;
+        if (previous != null) {
+            ordinal = previous.ordinal;
+            detach(previous);
+        } else {
+            Integer free = freeOrdinals.poll();
+            ordinal = free != null ? free : membersByOrdinal.size();
+            if (free != null) {
+                membersByOrdinal.set(ordinal, userId);
+            } else {
+                membersByOrdinal.add(userId);
+            }
+            allMembers.add(ordinal);
+        }
+        Member member = new Member(ordinal);
+        values.forEach((facet, facetValues) -> {
+            for (String value : facetValues) {
+                Tag tag = dictionaries.get(facet).computeIfAbsent(normalize(value), key -> new Tag(facet, key, value));
+                if (!member.tags.contains(tag)) {
+                    tag.members.add(ordinal);
+                    member.tags.add(tag);
+                }
+            }
+        });
+        members.put(userId, member);
+    }
+
+    private void removeLocked(UUID userId) {
+        Member member = members.remove(userId);
+        if (member == null) {
+            return;
+        }
+        detach(member);
+        allMembers.remove(member.ordinal);
+        membersByOrdinal.set(member.ordinal, null);
+        freeOrdinals.push(member.ordinal);
+    }
+
+    private void detach(Member member) {
+        for (Tag tag : member.tags) {
+            tag.members.remove(member.ordinal);
+            if (tag.members.isEmpty()) {
+                dictionaries.get(tag.facet).remove(tag.key);
+            }
+        }
+    }
+
+    private static Map<Facet, List<String>> tagValues(String skills, String interests, String state, String district,
+                                                      String city, String communityName) {
+        Map<Facet, List<String>> values = new LinkedHashMap<>();
+        values.put(Facet.SKILL, splitTags(skills));
+        values.put(Facet.INTEREST, splitTags(interests));
+        values.put(Facet.STATE, singleValue(state));
+        values.put(Facet.DISTRICT, singleValue(district));
+        values.put(Facet.CITY, singleValue(city));
+        values.put(Facet.COMMUNITY_NAME, singleValue(communityName));
+        return values;
+    }
+
+    // Skills and interests are free text: "Plumbing, carpentry", "plumbing;Carpentry" or a JSON-style array
+    static List<String> splitTags(String text) {
+        List<String> tags = new ArrayList<>();
+        if (text == null) {
+            return tags;
+        }
+        for (String part : TAG_SEPARATORS.split(text)) {
+            String tag = WHITESPACE.matcher(WRAPPING.matcher(part).replaceAll("")).replaceAll(" ");
+            if (!tag.isEmpty() && tag.length() <= MAX_TAG_LENGTH) {
+                tags.add(tag);
+            }
+            if (tags.size() == MAX_TAGS_PER_FIELD) {
+                break;
+            }
+        }
+        return tags;
+    }
+
+    private static List<String> singleValue(String value) {
+        List<String> values = new ArrayList<>(1);
+        if (value != null && !value.isBlank()) {
+            values.add(WHITESPACE.matcher(value.trim()).replaceAll(" "));
+        }
+        return values;
+    }
+
+    private static String normalize(String value) {
+        String plain = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(plain.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One dictionary entry: a normalised skill, interest or location and the members that have it. Spellings
+     * that differ only in case, accents or spacing share a tag, shown as first seen.
+     */
+    private static final class Tag {
+        private final Facet facet;
+        private final String key;
+        private final String value;
+        private final CompressedBitmap members = new CompressedBitmap();
+
+        private Tag(Facet facet, String key, String value) {
+            this.facet = facet;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static final class Member {
+        private final int ordinal;
+        private final List<Tag> tags = new ArrayList<>();
+
+        private Member(int ordinal) {
+            this.ordinal = ordinal;
+        }
+    }
+}
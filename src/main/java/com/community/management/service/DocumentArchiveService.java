@@ -0,0 +1,116 @@
+package com.community.management.service;
+
+import com.community.management.entity.Document;
+import com.community.management.entity.DocumentCategory;
+import com.community.management.exception.ResourceNotFoundException;
+import com.community.management.exception.ValidationException;
+import com.community.management.security.UserPrincipal;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams a ZIP of several documents straight into the response. Files are copied one after another through
+ * a single buffer, so neither a temp file nor memory proportional to the archive is needed. Formats that are
+ * already compressed are written at deflate level 0, which stores their bytes instead of compressing them again.
+ */
+@Service
+public class DocumentArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentArchiveService.class);
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "pdf", "jpg", "jpeg", "png", "gif", "webp", "zip", "gz", "7z", "docx", "xlsx", "pptx", "mp3", "mp4");
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private DocumentDownloadCounter documentDownloadCounter;
+
+    @Value("${app.documents.archive-max-entries:200}")
+    private int maxEntries;
+
+    public void writeArchive(UserPrincipal currentUser, List<UUID> ids, String title, DocumentCategory category,
+                             HttpServletResponse response) throws IOException {
+        // Resolved before the first byte is written, while a 4xx can still be returned
+        List<Document> documents = documentService.findAccessibleDocuments(currentUser, ids, title, category, maxEntries + 1);
+        if (documents.isEmpty()) {
+            throw new ResourceNotFoundException("No documents match the selection.");
+        }
+        if (documents.size() > maxEntries) {
+            throw new ValidationException("An archive can contain at most " + maxEntries + " documents; "
+                    + "narrow the selection.");
+        }
+
+        String archiveName = "documents" + (category != null ? "-" + category.name().toLowerCase(Locale.ROOT) : "") + ".zip";
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archiveName + "\"");
+
+        Set<String> usedNames = new HashSet<>();
+        try (ZipOutputStream zip = new ZipOutputStream(response.getOutputStream())) {
+            for (Document document : documents) {
+                String fileName = document.getFileUrl().substring(document.getFileUrl().lastIndexOf('/') + 1);
+                String extension = extensionOf(fileName);
+
+                InputStream in;
+                try {
+                    in = fileStorageService.loadFileAsResource(fileName).getInputStream();
+                } catch (ResourceNotFoundException | IOException ex) {
+                    // The response is already committed, so a missing file is left out rather than failing the archive
+                    logger.warn("Leaving document {} out of the archive: {}", document.getId(), ex.getMessage());
+                    continue;
+                }
+
+                ZipEntry entry = new ZipEntry(uniqueEntryName(document.getTitle(), extension, usedNames));
+                LocalDateTime modified = document.getUpdatedAt() != null ? document.getUpdatedAt() : document.getCreatedAt();
+                if (modified != null) {
+                    entry.setTimeLocal(modified);
+                }
+                zip.setLevel(COMPRESSED_EXTENSIONS.contains(extension) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+                zip.putNextEntry(entry);
+                try (in) {
+                    in.transferTo(zip);
+                }
+                zip.closeEntry();
+                documentDownloadCounter.recordDownload(document.getId(), fileName);
+            }
+        }
+    }
+
+    private static String uniqueEntryName(String title, String extension, Set<String> usedNames) {
+        String base = title.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        if (base.isEmpty()) {
+            base = "document";
+        }
+        String suffix = extension.isEmpty() ? "" : "." + extension;
+        String name = base + suffix;
+        for (int i = 2; !usedNames.add(name.toLowerCase(Locale.ROOT)); i++) {
+            name = base + " (" + i + ")" + suffix;
+        }
+        return name;
+    }
+
+    private static String extensionOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
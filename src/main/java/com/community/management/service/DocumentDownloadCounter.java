@@ -0,0 +1,141 @@
+package com.community.management.service;
+
+import com.community.management.repository.DocumentFileRef;
+import com.community.management.repository.DocumentRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts document downloads in memory and writes them out periodically.
+ * The download path only bumps a counter keyed by document id and file name; the flush checks each id
+ * against the document's stored file name and applies the counts with one UPDATE per distinct increment,
+ * so the number of statements depends on how skewed the downloads are rather than on how many documents
+ * were downloaded. A download that names no document, such as an old link, is counted only when exactly
+ * one document uses the file, since a content-addressed file may be shared by several documents.
+ */
+@Service
+public class DocumentDownloadCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentDownloadCounter.class);
+    private static final int RESOLVE_BATCH_SIZE = 500;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Download, Long> pending = new ConcurrentHashMap<>();
+    private final AtomicLong flushedDownloads = new AtomicLong();
+    private final AtomicLong flushStatements = new AtomicLong();
+
+    /**
+     * @param documentId the document the link was issued for, or null if the link did not say
+     */
+    public void recordDownload(UUID documentId, String fileName) {
+        pending.merge(new Download(documentId, fileName), 1L, Long::sum);
+    }
+
+    @Scheduled(fixedDelayString = "${app.downloads.flush-interval-ms:30000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // remove() hands over each count atomically; downloads recorded meanwhile start a new entry
+        Map<Download, Long> drained = new HashMap<>();
+        for (Download download : List.copyOf(pending.keySet())) {
+            Long count = pending.remove(download);
+            if (count != null) {
+                drained.put(download, count);
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(drained));
+        } catch (RuntimeException ex) {
+            drained.forEach((download, count) -> pending.merge(download, count, Long::sum));
+            logger.warn("Could not flush download counts, will retry: {}", ex.getMessage());
+        }
+    }
+
+    private void apply(Map<Download, Long> drained) {
+        Map<UUID, Long> byDocument = new HashMap<>();
+        Map<UUID, List<Download>> withId = new HashMap<>();
+        Map<String, Long> withoutId = new HashMap<>();
+        drained.forEach((download, count) -> {
+            if (download.documentId() != null) {
+                withId.computeIfAbsent(download.documentId(), k -> new ArrayList<>()).add(download);
+            } else {
+                withoutId.merge(download.fileName(), count, Long::sum);
+            }
+        });
+
+        // Primary key lookups; a download only counts if the document still points at the file that was served
+        List<UUID> ids = new ArrayList<>(withId.keySet());
+        for (int from = 0; from < ids.size(); from += RESOLVE_BATCH_SIZE) {
+            for (DocumentFileRef ref : documentRepository.findFileRefsByIds(
+                    ids.subList(from, Math.min(ids.size(), from + RESOLVE_BATCH_SIZE)))) {
+                for (Download download : withId.get(ref.getId())) {
+                    if (download.fileName().equals(ref.getFileName())) {
+                        byDocument.merge(ref.getId(), drained.get(download), Long::sum);
+                    }
+                }
+            }
+        }
+
+        List<String> fileNames = new ArrayList<>(withoutId.keySet());
+        for (int from = 0; from < fileNames.size(); from += RESOLVE_BATCH_SIZE) {
+            Map<String, List<UUID>> documentsByFile = new HashMap<>();
+            // Avatars and event images are downloaded through the same endpoint and simply resolve to nothing
+            for (DocumentFileRef ref : documentRepository.findFileRefsByFileNames(
+                    fileNames.subList(from, Math.min(fileNames.size(), from + RESOLVE_BATCH_SIZE)))) {
+                documentsByFile.computeIfAbsent(ref.getFileName(), k -> new ArrayList<>()).add(ref.getId());
+            }
+            documentsByFile.forEach((fileName, documents) -> {
+                if (documents.size() == 1) {
+                    byDocument.merge(documents.get(0), withoutId.get(fileName), Long::sum);
+                }
+            });
+        }
+
+        Map<Integer, List<UUID>> documentsByIncrement = new HashMap<>();
+        byDocument.forEach((documentId, count) -> documentsByIncrement
+                .computeIfAbsent((int) Math.min(Integer.MAX_VALUE, count), k -> new ArrayList<>()).add(documentId));
+        long downloads = 0;
+        for (Map.Entry<Integer, List<UUID>> entry : documentsByIncrement.entrySet()) {
+            documentRepository.incrementDownloadCounts(entry.getValue(), entry.getKey());
+            downloads += (long) entry.getKey() * entry.getValue().size();
+        }
+        flushedDownloads.addAndGet(downloads);
+        flushStatements.addAndGet(documentsByIncrement.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new HashMap<>();
+        metrics.put("pendingFiles", (long) pending.size());
+        metrics.put("flushedDownloads", flushedDownloads.get());
+        metrics.put("flushStatements", flushStatements.get());
+        return metrics;
+    }
+
+    private record Download(UUID documentId, String fileName) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.community.management.service;
+
+import com.community.management.entity.Document;
+import com.community.management.repository.DocumentRepository;
+import com.community.management.util.TransactionCallbacks;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the document search index in step with the documents table. Text extraction and indexing run on
+ * a bounded pool after the surrounding transaction commits, so uploads never wait for PDF parsing.
+ * Jobs that do not fit in the queue, and documents missed while the application was down, are picked up
+ * by the backfill that runs at startup.
+ */
+@Service
+public class DocumentIndexingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentIndexingService.class);
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private DocumentTextExtractor documentTextExtractor;
+
+    @Autowired
+    private DocumentSearchIndex documentSearchIndex;
+
+    private final ThreadPoolExecutor workers;
+    private final Set<UUID> queued = ConcurrentHashMap.newKeySet();
+
+    public DocumentIndexingService(@Value("${app.search.workers:2}") int workerCount,
+                                   @Value("${app.search.queue-capacity:500}") int queueCapacity) {
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Extracts the document's text and indexes it once the surrounding transaction commits.
+     */
+    public void indexAsync(UUID documentId) {
+        TransactionCallbacks.afterCommit(() -> enqueue(documentId, true));
+    }
+
+    /**
+     * Re-indexes title, description, category and access level, reusing the text already in the index.
+     */
+    public void reindexMetadataAsync(UUID documentId) {
+        TransactionCallbacks.afterCommit(() -> enqueue(documentId, false));
+    }
+
+    /**
+     * Removes a deleted document from the index on the same pool; indexing a document that no longer exists
+     * deletes its entry. An entry left behind by a full queue is harmless, as search results are checked
+     * against the documents table.
+     */
+    public void removeAsync(UUID documentId) {
+        TransactionCallbacks.afterCommit(() -> enqueue(documentId, false));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingDocuments() {
+        Thread backfill = new Thread(() -> {
+            int indexed = 0;
+            for (UUID documentId : documentRepository.findAllIds()) {
+                try {
+                    if (!documentSearchIndex.contains(documentId)) {
+                        index(documentId, true);
+                        indexed++;
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    logger.warn("Could not index document {}: {}", documentId, ex.getMessage());
+                }
+            }
+            logger.info("Search index backfill finished, {} documents indexed", indexed);
+        }, "search-index-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    private void enqueue(UUID documentId, boolean extractText) {
+        if (!queued.add(documentId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                queued.remove(documentId);
+                try {
+                    index(documentId, extractText);
+                } catch (IOException | RuntimeException ex) {
+                    logger.warn("Could not index document {}: {}", documentId, ex.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            queued.remove(documentId);
+            logger.debug("Search indexing queue is full, document {} is left to the next backfill", documentId);
+        }
+    }
+
+    private void index(UUID documentId, boolean extractText) throws IOException {
+        Optional<Document> found = documentRepository.findById(documentId);
+        if (found.isEmpty()) {
+            documentSearchIndex.delete(documentId);
+            return;
+        }
+        Document document = found.get();
+        String text = null;
+        // A metadata edit of a document that never made it into the index needs its text as well
+        if (extractText || !documentSearchIndex.contains(documentId)) {
+            String fileName = document.getFileUrl().substring(document.getFileUrl().lastIndexOf('/') + 1);
+            if (documentTextExtractor.supports(fileName)) {
+                text = documentTextExtractor.extractText(fileStorageService.loadFileAsResource(fileName), fileName);
+            }
+        }
+        documentSearchIndex.index(document, text);
+    }
+}
@@ -0,0 +1,212 @@
+package com.community.management.service;
+
+import com.community.management.entity.AccessLevel;
+import com.community.management.entity.Document;
+import com.community.management.entity.DocumentCategory;
+import com.community.management.exception.FileStorageException;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Embedded Lucene index of document titles, descriptions and extracted text.
+ * Access level and category are indexed as exact-match fields and applied as filters, so a search never
+ * returns a hit the caller may not read. Extracted text is stored (compressed) so that metadata edits can
+ * re-index a document without extracting its file again.
+ * Changes become searchable through a near-real-time reopen and are committed to disk on a schedule and at
+ * shutdown, so a bulk upload or the startup backfill does not pay a flush and fsync per document. After a
+ * crash, documents indexed since the last commit are re-added by the startup backfill, and search results
+ * are checked against the documents table, so a lost delete only leaves a hit that is never returned.
+ */
+@Service
+public class DocumentSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentSearchIndex.class);
+
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String DESCRIPTION = "description";
+    private static final String CONTENT = "content";
+    private static final String ACCESS_LEVEL = "accessLevel";
+    private static final String CATEGORY = "category";
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final FSDirectory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    public DocumentSearchIndex(@Value("${app.search.index-dir:./search-index}") String indexDir) {
+        try {
+            Path location = Paths.get(indexDir).toAbsolutePath().normalize();
+            this.directory = FSDirectory.open(location);
+            this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not open the document search index.", ex);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        writer.commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * Adds or replaces a document. {@code content} may be null, in which case previously stored text is kept.
+     */
+    public void index(Document document, String content) throws IOException {
+        String text = content != null ? content : storedContent(document.getId());
+        org.apache.lucene.document.Document entry = new org.apache.lucene.document.Document();
+        entry.add(new StringField(ID, document.getId().toString(), Field.Store.YES));
+        entry.add(new TextField(TITLE, document.getTitle(), Field.Store.NO));
+        if (document.getDescription() != null) {
+            entry.add(new TextField(DESCRIPTION, document.getDescription(), Field.Store.NO));
+        }
+        if (text != null) {
+            entry.add(new TextField(CONTENT, text, Field.Store.YES));
+        }
+        entry.add(new StringField(ACCESS_LEVEL, document.getAccessLevel().name(), Field.Store.NO));
+        entry.add(new StringField(CATEGORY, document.getCategory().name(), Field.Store.NO));
+
+        writer.updateDocument(new Term(ID, document.getId().toString()), entry);
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    public void delete(UUID documentId) throws IOException {
+        writer.deleteDocuments(new Term(ID, documentId.toString()));
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.commit-interval-ms:30000}")
+    public void commit() {
+        if (!writer.hasUncommittedChanges()) {
+            return;
+        }
+        try {
+            writer.commit();
+        } catch (IOException ex) {
+            logger.warn("Could not commit the document search index: {}", ex.getMessage());
+        }
+    }
+
+    public boolean contains(UUID documentId) throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return searcher.count(new TermQuery(new Term(ID, documentId.toString()))) > 0;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Returns matching document ids, best first. Every query term must match in the title, description or
+     * text; the last term also matches as a prefix so results appear while the user is still typing.
+     */
+    public List<UUID> search(String queryText, Collection<AccessLevel> accessLevels, DocumentCategory category,
+                             int limit) throws IOException {
+        List<String> terms = analyze(queryText);
+        if (terms.isEmpty() || accessLevels.isEmpty()) {
+            return List.of();
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (int i = 0; i < terms.size(); i++) {
+            query.add(anyField(terms.get(i), i == terms.size() - 1), BooleanClause.Occur.MUST);
+        }
+        BooleanQuery.Builder levels = new BooleanQuery.Builder();
+        for (AccessLevel level : accessLevels) {
+            levels.add(new TermQuery(new Term(ACCESS_LEVEL, level.name())), BooleanClause.Occur.SHOULD);
+        }
+        query.add(levels.build(), BooleanClause.Occur.FILTER);
+        if (category != null) {
+            query.add(new TermQuery(new Term(CATEGORY, category.name())), BooleanClause.Occur.FILTER);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(query.build(), limit);
+            List<UUID> ids = new ArrayList<>(top.scoreDocs.length);
+            for (ScoreDoc hit : top.scoreDocs) {
+                ids.add(UUID.fromString(searcher.storedFields().document(hit.doc, Set.of(ID)).get(ID)));
+            }
+            return ids;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private Query anyField(String term, boolean prefix) {
+        BooleanQuery.Builder fields = new BooleanQuery.Builder();
+        fields.add(new BoostQuery(termQuery(TITLE, term, prefix), 3f), BooleanClause.Occur.SHOULD);
+        fields.add(new BoostQuery(termQuery(DESCRIPTION, term, prefix), 2f), BooleanClause.Occur.SHOULD);
+        fields.add(termQuery(CONTENT, term, prefix), BooleanClause.Occur.SHOULD);
+        return fields.build();
+    }
+
+    private static Query termQuery(String field, String term, boolean prefix) {
+        return prefix ? new PrefixQuery(new Term(field, term)) : new TermQuery(new Term(field, term));
+    }
+
+    private List<String> analyze(String text) throws IOException {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(CONTENT, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        }
+        return terms;
+    }
+
+    private String storedContent(UUID documentId) throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(new TermQuery(new Term(ID, documentId.toString())), 1);
+            if (top.scoreDocs.length == 0) {
+                return null;
+            }
+            return searcher.storedFields().document(top.scoreDocs[0].doc).get(CONTENT);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+}
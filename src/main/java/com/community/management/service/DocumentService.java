@@ -2,25 +2,38 @@ package com.community.management.service;
 
 import com.community.management.dto.request.CreateDocumentRequest;
 import com.community.management.dto.request.UpdateDocumentRequest;
+import com.community.management.dto.response.CursorPage;
 import com.community.management.dto.response.DocumentResponse;
 import com.community.management.entity.AccessLevel;
 import com.community.management.entity.Document;
 import com.community.management.entity.DocumentCategory;
+import com.community.management.entity.UploadSession;
 import com.community.management.entity.User;
+import com.community.management.exception.FileStorageException;
 import com.community.management.exception.ResourceNotFoundException;
+import com.community.management.exception.ValidationException;
 import com.community.management.repository.DocumentRepository;
 import com.community.management.repository.UserRepository;
+import com.community.management.security.FileUrlSigner;
 import com.community.management.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,19 +46,33 @@ public class DocumentService {
     private UserRepository userRepository;
 
     @Autowired
-    @Qualifier("localFileStorageService")
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private DocumentIndexingService documentIndexingService;
+
+    @Autowired
+    private DocumentSearchIndex documentSearchIndex;
+
+    @Autowired
+    private CompressedVariantService compressedVariantService;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Autowired
+    private FileUrlSigner fileUrlSigner;
+
     @Transactional
     public DocumentResponse uploadDocument(CreateDocumentRequest request, MultipartFile file, UserPrincipal currentUser) {
         User user = userRepository.findById(currentUser.getId())
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", currentUser.getId()));
 
+        storageQuotaService.reserveDocument(user.getId(), file.getSize());
         String fileName = fileStorageService.storeFile(file);
-        String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
-                .path("/api/files/")
-                .path(fileName)
-                .toUriString();
 
         Document document = new Document();
         document.setTitle(request.getTitle());
@@ -54,25 +81,144 @@ public class DocumentService {
         document.setAccessLevel(request.getAccessLevel());
         document.setUploadedBy(user);
         document.setFileType(file.getContentType());
-        document.setFileSize(String.valueOf(file.getSize()));
-        document.setFileUrl(fileDownloadUri);
+        document.setFileSize(file.getSize());
+        document.setFileUrl(fileDownloadUri(fileName));
 
         Document savedDocument = documentRepository.save(document);
+        documentIndexingService.indexAsync(savedDocument.getId());
+        compressedVariantService.generateVariantAsync(fileName);
         return mapDocumentToResponse(savedDocument);
     }
 
+    @Transactional
+    public DocumentResponse completeChunkedUpload(UUID sessionId, UserPrincipal currentUser) {
+        UploadSession session = chunkedUploadService.findCompletedSession(sessionId, currentUser);
+        storageQuotaService.reserveDocument(currentUser.getId(), session.getTotalSize());
+        String fileName = fileStorageService.storeFile(chunkedUploadService.stagedFile(sessionId),
+                session.getFileExtension(), session.getContentType());
+
+        Document document = new Document();
+        document.setTitle(session.getTitle());
+        document.setDescription(session.getDescription());
+        document.setCategory(session.getCategory());
+        document.setAccessLevel(session.getAccessLevel());
+        document.setUploadedBy(session.getUploadedBy());
+        document.setFileType(session.getContentType());
+        document.setFileSize(session.getTotalSize());
+        document.setFileUrl(fileDownloadUri(fileName));
+
+        Document savedDocument = documentRepository.save(document);
+        chunkedUploadService.finishSession(session);
+        documentIndexingService.indexAsync(savedDocument.getId());
+        compressedVariantService.generateVariantAsync(fileName);
+        return mapDocumentToResponse(savedDocument);
+    }
+
+    private String fileDownloadUri(String fileName) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/files/")
+                .path(fileName)
+                .toUriString();
+    }
+
     @Transactional(readOnly = true)
-    public List<DocumentResponse> getDocuments(UserPrincipal currentUser, String title, DocumentCategory category) {
+    public CursorPage<DocumentResponse> getDocuments(UserPrincipal currentUser, String title, DocumentCategory category,
+                                                     String cursor, int limit) {
         List<AccessLevel> accessibleLevels = getAccessibleLevels(currentUser.getAuthorities().stream().findFirst().get().getAuthority());
-        List<Document> documents = documentRepository.findByAccessLevelIn(accessibleLevels);
+        LocalDateTime cursorCreatedAt = null;
+        UUID cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            cursorCreatedAt = LocalDateTime.parse(parts[0]);
+            cursorId = UUID.fromString(parts[1]);
+        }
+
+        // One row more than requested tells us whether there is a next page without a count query
+        List<Document> documents = documentRepository.findPage(accessibleLevels, category, likePattern(title),
+                cursorCreatedAt, cursorId, PageRequest.of(0, limit + 1));
+        boolean hasMore = documents.size() > limit;
+        if (hasMore) {
+            documents = documents.subList(0, limit);
+        }
 
-        return documents.stream()
+        Document last = documents.isEmpty() ? null : documents.get(documents.size() - 1);
+        return CursorPage.<DocumentResponse>builder()
+                .items(documents.stream().map(this::mapDocumentToResponse).collect(Collectors.toList()))
+                .nextCursor(hasMore ? encodeCursor(last.getCreatedAt() + "|" + last.getId()) : null)
+                .build();
+    }
+
+    /**
+     * Full-text search over titles, descriptions and extracted text. Hits are re-checked against the
+     * database, so a document whose access level changed since it was indexed is never leaked.
+     */
+    @Transactional(readOnly = true)
+    public List<DocumentResponse> searchDocuments(UserPrincipal currentUser, String query, DocumentCategory category,
+                                                  int limit) {
+        List<AccessLevel> accessibleLevels = getAccessibleLevels(currentUser.getAuthorities().stream().findFirst().get().getAuthority());
+        List<UUID> ids;
+        try {
+            ids = documentSearchIndex.search(query, accessibleLevels, category, limit);
+        } catch (IOException ex) {
+            throw new FileStorageException("Document search is temporarily unavailable.", ex);
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, Document> documents = documentRepository.findByIdInAndAccessLevelIn(ids, accessibleLevels).stream()
+                .collect(Collectors.toMap(Document::getId, Function.identity()));
+        return ids.stream()
+                .map(documents::get)
+                .filter(Objects::nonNull)
+                .map(this::mapDocumentToResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Documents the user may read, either the given ids or everything matching the filters, up to {@code limit}.
+     */
+    @Transactional(readOnly = true)
+    public List<Document> findAccessibleDocuments(UserPrincipal currentUser, List<UUID> ids, String title,
+                                                  DocumentCategory category, int limit) {
+        List<AccessLevel> accessibleLevels = getAccessibleLevels(currentUser.getAuthorities().stream().findFirst().get().getAuthority());
+        if (ids == null || ids.isEmpty()) {
+            return documentRepository.findPage(accessibleLevels, category, likePattern(title), null, null,
+                    PageRequest.of(0, limit));
+        }
+
+        return documentRepository.findByIdInAndAccessLevelIn(ids, accessibleLevels).stream()
                 .filter(doc -> title == null || doc.getTitle().toLowerCase().contains(title.toLowerCase()))
                 .filter(doc -> category == null || doc.getCategory().equals(category))
-                .map(this::mapDocumentToResponse)
+                .limit(limit)
                 .collect(Collectors.toList());
     }
 
+    private static String likePattern(String title) {
+        if (title == null || title.isBlank()) {
+            return null;
+        }
+        return title.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static String encodeCursor(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length == 2) {
+                LocalDateTime.parse(parts[0]);
+                UUID.fromString(parts[1]);
+                return parts;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            // Reported below
+        }
+        throw new ValidationException("Invalid cursor.");
+    }
+
     @Transactional(readOnly = true)
     public DocumentResponse getDocumentById(UUID documentId, UserPrincipal currentUser) {
         Document document = documentRepository.findById(documentId)
@@ -104,6 +250,7 @@ public class DocumentService {
         if (request.getAccessLevel() != null) document.setAccessLevel(request.getAccessLevel());
 
         Document updatedDocument = documentRepository.save(document);
+        documentIndexingService.reindexMetadataAsync(updatedDocument.getId());
         return mapDocumentToResponse(updatedDocument);
     }
 
@@ -121,7 +268,16 @@ public class DocumentService {
 
         String fileName = document.getFileUrl().substring(document.getFileUrl().lastIndexOf('/') + 1);
         fileStorageService.deleteFile(fileName);
+        storageQuotaService.releaseDocument(document.getUploadedBy().getId(), document.getFileSize());
         documentRepository.delete(document);
+        documentIndexingService.removeAsync(documentId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DocumentResponse> getTopDownloadedDocuments(int limit) {
+        return documentRepository.findAllByOrderByDownloadCountDesc(PageRequest.of(0, limit)).stream()
+                .map(this::mapDocumentToResponse)
+                .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
@@ -156,8 +312,8 @@ public class DocumentService {
                 .category(document.getCategory())
                 .accessLevel(document.getAccessLevel())
                 .fileType(document.getFileType())
-                .fileSize(document.getFileSize())
-                .fileUrl(document.getFileUrl())
+                .fileSize(document.getFileSize() != null ? String.valueOf(document.getFileSize()) : null)
+                .fileUrl(fileUrlSigner.sign(document.getFileUrl(), document.getId()))
                 .uploadedBy(document.getUploadedBy().getId())
                 .uploadedByName(document.getUploadedBy().getFullName())
                 .downloadCount(document.getDownloadCount())
@@ -0,0 +1,90 @@
+package com.community.management.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Pulls plain text out of stored documents for the search index. PDFs are parsed, and plain text and CSV
+ * files are read as UTF-8; images return null and are indexed by title and description only.
+ */
+@Service
+public class DocumentTextExtractor {
+
+    @Value("${app.search.max-pages:300}")
+    private int maxPages;
+
+    @Value("${app.search.max-chars:500000}")
+    private int maxChars;
+
+    public boolean supports(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".pdf") || isPlainText(lower);
+    }
+
+    public String extractText(Resource resource, String fileName) throws IOException {
+        if (!supports(fileName)) {
+            return null;
+        }
+        if (isPlainText(fileName.toLowerCase(Locale.ROOT))) {
+            return readPlainText(resource);
+        }
+        if (resource.isFile()) {
+            return extractPdf(resource.getFile());
+        }
+        // PDF needs random access, so remote objects are spooled to a temp file rather than held in memory
+        Path temp = Files.createTempFile("extract-", ".pdf");
+        try {
+            try (InputStream in = resource.getInputStream()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return extractPdf(temp.toFile());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static boolean isPlainText(String lowerCaseName) {
+        return lowerCaseName.endsWith(".txt") || lowerCaseName.endsWith(".csv");
+    }
+
+    // Reads no further than the character cap, so a huge log or export never lands on the heap in full
+    private String readPlainText(Resource resource) throws IOException {
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            char[] buffer = new char[Math.min(maxChars, 8192)];
+            StringBuilder text = new StringBuilder();
+            int read;
+            while (text.length() < maxChars
+                    && (read = reader.read(buffer, 0, Math.min(buffer.length, maxChars - text.length()))) != -1) {
+                text.append(buffer, 0, read);
+            }
+            return text.toString();
+        }
+    }
+
+    private String extractPdf(File file) throws IOException {
+        // Temp-file stream cache keeps large scans from pulling their decoded streams onto the heap
+        try (PDDocument pdf = Loader.loadPDF(file, IOUtils.createTempFileOnlyStreamCache())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setSortByPosition(true);
+            stripper.setEndPage(Math.min(pdf.getNumberOfPages(), maxPages));
+            String text = stripper.getText(pdf);
+            return text.length() > maxChars ? text.substring(0, maxChars) : text;
+        }
+    }
+}
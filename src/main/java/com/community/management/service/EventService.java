@@ -13,6 +13,7 @@ import com.community.management.exception.ValidationException;
 import com.community.management.repository.EventRegistrationRepository;
 import com.community.management.repository.EventRepository;
 import com.community.management.repository.UserRepository;
+import com.community.management.security.FileUrlSigner;
 import com.community.management.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.AccessDeniedException;
@@ -36,6 +37,18 @@ public class EventService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ReminderService reminderService;
+
+    @Autowired
+    private MemberSuggestionService memberSuggestionService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private FileUrlSigner fileUrlSigner;
+
     @Transactional
     public EventResponse createEvent(CreateEventRequest request, UserPrincipal currentUser) {
         User user = userRepository.findById(currentUser.getId())
@@ -46,6 +59,7 @@ public class EventService {
         mapRequestToEvent(request, event);
 
         Event savedEvent = eventRepository.save(event);
+        imageVariantService.generateVariantsForUrlAsync(savedEvent.getImageUrl());
         return mapEventToResponse(savedEvent);
     }
 
@@ -81,6 +95,12 @@ public class EventService {
         mapRequestToEvent(request, event);
 
         Event updatedEvent = eventRepository.save(event);
+        if (request.getEventDate() != null) {
+            reminderService.rescheduleEvent(eventId);
+        }
+        if (request.getImageUrl() != null) {
+            imageVariantService.generateVariantsForUrlAsync(updatedEvent.getImageUrl());
+        }
         return mapEventToResponse(updatedEvent);
     }
 
@@ -95,6 +115,7 @@ public class EventService {
             throw new ResourceNotFoundException("Event", "id", eventId);
         }
         eventRepository.deleteById(eventId);
+        memberSuggestionService.removeActivityAsync(MemberSuggestionService.ActivityKind.EVENT, eventId);
     }
 
     @Transactional
@@ -120,6 +141,8 @@ public class EventService {
         registration.setUser(user);
 
         EventRegistration savedRegistration = eventRegistrationRepository.save(registration);
+        reminderService.scheduleEventRegistration(savedRegistration.getId());
+        memberSuggestionService.joinAsync(user.getId(), MemberSuggestionService.ActivityKind.EVENT, eventId);
         return mapRegistrationToResponse(savedRegistration);
     }
 
@@ -133,6 +156,8 @@ public class EventService {
         eventRepository.save(event);
 
         eventRegistrationRepository.delete(registration);
+        reminderService.cancelEventRegistration(registration.getId());
+        memberSuggestionService.leaveAsync(currentUser.getId(), MemberSuggestionService.ActivityKind.EVENT, eventId);
     }
 
     @Transactional(readOnly = true)
@@ -170,7 +195,7 @@ public class EventService {
                 .status(event.getStatus())
                 .createdBy(event.getCreatedBy().getId())
                 .createdByName(event.getCreatedBy().getFullName())
-                .imageUrl(event.getImageUrl())
+                .imageUrl(fileUrlSigner.sign(event.getImageUrl()))
                 .registrationRequired(event.isRegistrationRequired())
                 .createdAt(event.getCreatedAt())
                 .updatedAt(event.getUpdatedAt())
@@ -196,7 +221,7 @@ public class EventService {
         event.setEndDate(request.getEndDate());
         event.setLocation(request.getLocation());
         event.setMaxParticipants(request.getMaxParticipants());
-        event.setImageUrl(request.getImageUrl());
+        event.setImageUrl(FileUrlSigner.unsigned(request.getImageUrl()));
         event.setRegistrationRequired(request.isRegistrationRequired());
     }
 
@@ -208,7 +233,7 @@ public class EventService {
         if (request.getLocation() != null) event.setLocation(request.getLocation());
         if (request.getMaxParticipants() != null) event.setMaxParticipants(request.getMaxParticipants());
         if (request.getStatus() != null) event.setStatus(request.getStatus());
-        if (request.getImageUrl() != null) event.setImageUrl(request.getImageUrl());
+        if (request.getImageUrl() != null) event.setImageUrl(FileUrlSigner.unsigned(request.getImageUrl()));
         if (request.getRegistrationRequired() != null) event.setRegistrationRequired(request.getRegistrationRequired());
     }
 }
@@ -0,0 +1,93 @@
+package com.community.management.service;
+
+import com.community.management.entity.FileAccess;
+import com.community.management.repository.FileAccessRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each stored file was last read, for the cold tier migration.
+ * Reads only update an in-memory map; the latest time per file is written out periodically, so a
+ * popular file costs one upsert per flush interval however often it is downloaded.
+ */
+@Service
+@ConditionalOnExpression("'${file.cold-tier.type:none}' != 'none'")
+public class FileAccessTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileAccessTracker.class);
+
+    @Autowired
+    private FileAccessRepository fileAccessRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void recordAccess(String fileName) {
+        pending.put(fileName, LocalDateTime.now());
+    }
+
+    /**
+     * Last read of each file, including reads that have not been flushed yet. Files never read since
+     * tracking began are absent.
+     */
+    public Map<String, LocalDateTime> lastAccess(Collection<String> fileNames) {
+        Map<String, LocalDateTime> lastAccess = new HashMap<>();
+        for (FileAccess access : fileAccessRepository.findByFileNameIn(fileNames)) {
+            lastAccess.put(access.getFileName(), access.getLastAccessedAt());
+        }
+        for (String fileName : fileNames) {
+            LocalDateTime unflushed = pending.get(fileName);
+            if (unflushed != null) {
+                lastAccess.merge(fileName, unflushed, (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+        return lastAccess;
+    }
+
+    public void forget(String fileName) {
+        pending.remove(fileName);
+        fileAccessRepository.deleteByFileName(fileName);
+    }
+
+    @Scheduled(fixedDelayString = "${file.cold-tier.access-flush-interval-ms:60000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, LocalDateTime> drained = new HashMap<>();
+        for (String fileName : List.copyOf(pending.keySet())) {
+            LocalDateTime accessedAt = pending.remove(fileName);
+            if (accessedAt != null) {
+                drained.put(fileName, accessedAt);
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    drained.forEach(fileAccessRepository::recordAccess));
+        } catch (RuntimeException ex) {
+            drained.forEach((fileName, accessedAt) -> pending.merge(fileName, accessedAt, (a, b) -> a.isAfter(b) ? a : b));
+            logger.warn("Could not flush file access times, will retry: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,288 @@
+package com.community.management.service;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Writes stored files to the response with HTTP caching and byte-range support.
+ * Local files are served with Tomcat sendfile when the connector offers it and otherwise through
+ * {@link FileChannel#transferTo}, so file bytes are never copied through a heap buffer.
+ * Remote objects that implement {@link RangeReadableResource} fetch only the requested bytes.
+ */
+@Service
+public class FileDownloadService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Stored names (and their image variants) are random UUIDs or SHA-256 content hashes, so their bytes never change
+    private static final Pattern IMMUTABLE_NAME = Pattern.compile(
+            "^([0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|[0-9a-f]{64})"
+                    + "(\\.(thumb|medium|large))?(\\.[A-Za-z0-9]+)?$");
+    private static final long IMMUTABLE_MAX_AGE_SECONDS = 31536000;
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=" + IMMUTABLE_MAX_AGE_SECONDS + ", immutable";
+    private static final String REVALIDATE_CACHE_CONTROL = "public, max-age=0, must-revalidate";
+
+    // More ranges than this, or ranges adding up to more than the file, are answered with the whole file once
+    private static final int MAX_RANGES = 16;
+
+    public void serve(Resource resource, String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        serve(resource, fileName, -1, request, response);
+    }
+
+    /**
+     * Same as {@link #serve(Resource, String, HttpServletRequest, HttpServletResponse)} for a URL that stops
+     * working after {@code maxAgeSeconds}, such as a signed link: caches must not keep the response longer.
+     */
+    public void serve(Resource resource, String fileName, long maxAgeSeconds, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        FileMetadata metadata = readMetadata(resource);
+        String etag = "\"" + Long.toHexString(metadata.length) + "-" + Long.toHexString(metadata.lastModified) + "\"";
+        MediaType contentType = MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl(fileName, maxAgeSeconds));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"");
+
+        // Handles If-None-Match, If-Modified-Since and the If-Match preconditions, and sets ETag and Last-Modified
+        if (new ServletWebRequest(request, response).checkNotModified(etag, metadata.lastModified)) {
+            return;
+        }
+
+        boolean headRequest = HttpMethod.HEAD.matches(request.getMethod());
+        List<HttpRange> ranges = parseRanges(request, etag, metadata, response);
+        if (ranges == null) {
+            return;
+        }
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType.toString());
+            response.setContentLengthLong(metadata.length);
+            if (!headRequest) {
+                writeRange(resource, metadata, 0, metadata.length, request, response, true);
+            }
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(metadata.length);
+            long end = ranges.get(0).getRangeEnd(metadata.length);
+            response.setContentType(contentType.toString());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(start, end, metadata.length));
+            response.setContentLengthLong(end - start + 1);
+            if (!headRequest) {
+                writeRange(resource, metadata, start, end - start + 1, request, response, true);
+            }
+            return;
+        }
+
+        writeMultipart(resource, metadata, ranges, contentType, headRequest, request, response);
+    }
+
+    private List<HttpRange> parseRanges(HttpServletRequest request, String etag, FileMetadata metadata,
+                                        HttpServletResponse response) throws IOException {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !matchesIfRange(request, etag, metadata)) {
+            return List.of();
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            long requested = 0;
+            for (HttpRange range : ranges) {
+                long start = range.getRangeStart(metadata.length);
+                if (start >= metadata.length) {
+                    throw new IllegalArgumentException("Range starts past the end of the file");
+                }
+                requested += range.getRangeEnd(metadata.length) - start + 1;
+            }
+            if (ranges.size() > MAX_RANGES || requested > metadata.length) {
+                return List.of();
+            }
+            return coalesce(ranges, metadata.length);
+        } catch (IllegalArgumentException ex) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + metadata.length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return null;
+        }
+    }
+
+    /**
+     * Merges overlapping and adjacent ranges, as RFC 9110 allows, so no byte is sent twice.
+     */
+    private static List<HttpRange> coalesce(List<HttpRange> ranges, long length) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        List<long[]> sorted = new ArrayList<>(ranges.size());
+        for (HttpRange range : ranges) {
+            sorted.add(new long[]{range.getRangeStart(length), range.getRangeEnd(length)});
+        }
+        sorted.sort(Comparator.comparingLong(range -> range[0]));
+        List<HttpRange> merged = new ArrayList<>(sorted.size());
+        long start = sorted.get(0)[0];
+        long end = sorted.get(0)[1];
+        for (long[] range : sorted.subList(1, sorted.size())) {
+            if (range[0] <= end + 1) {
+                end = Math.max(end, range[1]);
+            } else {
+                merged.add(HttpRange.createByteRange(start, end));
+                start = range[0];
+                end = range[1];
+            }
+        }
+        merged.add(HttpRange.createByteRange(start, end));
+        return merged;
+    }
+
+    private boolean matchesIfRange(HttpServletRequest request, String etag, FileMetadata metadata) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+        return ifRangeDate != -1 && metadata.lastModified / 1000 <= ifRangeDate / 1000;
+    }
+
+    private void writeMultipart(Resource resource, FileMetadata metadata, List<HttpRange> ranges, MediaType contentType,
+                                boolean headRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(metadata.length);
+            long end = range.getRangeEnd(metadata.length);
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(start, end, metadata.length) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + (end - start + 1);
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (headRequest) {
+            return;
+        }
+
+        ServletOutputStream out = response.getOutputStream();
+        for (int i = 0; i < ranges.size(); i++) {
+            long start = ranges.get(i).getRangeStart(metadata.length);
+            long end = ranges.get(i).getRangeEnd(metadata.length);
+            out.write(partHeaders.get(i));
+            writeRange(resource, metadata, start, end - start + 1, request, response, false);
+        }
+        out.write(closing);
+    }
+
+    private void writeRange(Resource resource, FileMetadata metadata, long start, long count,
+                            HttpServletRequest request, HttpServletResponse response, boolean wholeBody)
+            throws IOException {
+        if (metadata.path == null) {
+            if (resource instanceof RangeReadableResource rangeReadable) {
+                try (InputStream in = rangeReadable.getInputStream(start, start + count - 1)) {
+                    StreamUtils.copy(in, response.getOutputStream());
+                }
+                return;
+            }
+            try (InputStream in = resource.getInputStream()) {
+                StreamUtils.copyRange(in, response.getOutputStream(), start, start + count - 1);
+            }
+            return;
+        }
+
+        if (wholeBody && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, metadata.path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(metadata.path, StandardOpenOption.READ)) {
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, target);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    private FileMetadata readMetadata(Resource resource) throws IOException {
+        if (resource.isFile()) {
+            Path path = resource.getFile().toPath();
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileMetadata(path, attributes.size(), attributes.lastModifiedTime().toMillis());
+        }
+        return new FileMetadata(null, resource.contentLength(), resource.lastModified());
+    }
+
+    private static String cacheControl(String fileName, long maxAgeSeconds) {
+        if (!IMMUTABLE_NAME.matcher(fileName).matches()) {
+            return REVALIDATE_CACHE_CONTROL;
+        }
+        if (maxAgeSeconds < 0 || maxAgeSeconds >= IMMUTABLE_MAX_AGE_SECONDS) {
+            return IMMUTABLE_CACHE_CONTROL;
+        }
+        return "public, max-age=" + maxAgeSeconds + ", immutable";
+    }
+
+    private static String contentRange(long start, long end, long length) {
+        return "bytes " + start + "-" + end + "/" + length;
+    }
+
+    private static final class FileMetadata {
+        private final Path path;
+        private final long length;
+        private final long lastModified;
+
+        private FileMetadata(Path path, long length, long lastModified) {
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -1,10 +1,53 @@
 package com.community.management.service;
 
+import com.community.management.exception.FileStorageException;
 import org.springframework.core.io.Resource;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
 public interface FileStorageService {
+    List<String> IMAGE_EXTENSIONS = List.of(".png", ".jpg", ".jpeg", ".gif");
+    List<String> DOCUMENT_EXTENSIONS = List.of(".pdf", ".txt", ".csv", ".png", ".jpg", ".jpeg", ".gif");
+
     String storeFile(MultipartFile file);
+
+    /**
+     * Stores a file that has already been received into a local staging file. The source is moved or
+     * deleted; callers must not use it afterwards.
+     */
+    String storeFile(Path source, String fileExtension, String contentType);
+
     Resource loadFileAsResource(String fileName);
     void deleteFile(String fileName);
-}
\ No newline at end of file
+
+    /**
+     * Checks the upload's original name and returns its extension, including the leading dot.
+     */
+    static String validatedExtension(MultipartFile file) {
+        return validatedExtension(file.getOriginalFilename(), IMAGE_EXTENSIONS);
+    }
+
+    static String validatedExtension(String originalFilename, List<String> allowedExtensions) {
+        if (originalFilename == null) {
+            throw new FileStorageException("Cannot store file with null filename.");
+        }
+        String cleanedFilename = StringUtils.cleanPath(originalFilename);
+        if (cleanedFilename.contains("..")) {
+            throw new FileStorageException("Sorry! Filename contains invalid path sequence " + cleanedFilename);
+        }
+
+        String fileExtension = "";
+        if (cleanedFilename.contains(".")) {
+            fileExtension = cleanedFilename.substring(cleanedFilename.lastIndexOf("."));
+        }
+        if (fileExtension.isBlank() || !allowedExtensions.contains(fileExtension.toLowerCase(Locale.ROOT))) {
+            throw new FileStorageException("Invalid file type. Only "
+                    + String.join(", ", allowedExtensions).replace(".", "").toUpperCase(Locale.ROOT) + " are allowed.");
+        }
+        return fileExtension;
+    }
+}
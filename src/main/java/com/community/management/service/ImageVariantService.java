@@ -0,0 +1,249 @@
+package com.community.management.service;
+
+import com.community.management.exception.FileStorageException;
+import com.community.management.exception.ValidationException;
+import com.community.management.util.TransactionCallbacks;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates downscaled variants of uploaded images (avatars, event images) on a bounded worker pool.
+ * Variants are cached on local disk next to the uploads and served by FileController for a {@code size}
+ * parameter; until a variant exists the original is served, and the missing variant is queued.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+    private static final String FILES_PATH = "/api/files/";
+
+    public enum Variant {
+        THUMB(96), MEDIUM(480), LARGE(1280);
+
+        private final int maxDimension;
+
+        Variant(int maxDimension) {
+            this.maxDimension = maxDimension;
+        }
+
+        public static Variant fromParameter(String size) {
+            try {
+                return Variant.valueOf(size.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new ValidationException("Unknown image size '" + size + "'. Use thumb, medium or large.");
+            }
+        }
+    }
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${app.images.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    private final Path variantLocation;
+    private final ThreadPoolExecutor workers;
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+
+    public ImageVariantService(@Value("${app.images.variant-dir:./uploads/variants}") String variantDir,
+                               @Value("${app.images.workers:2}") int workerCount,
+                               @Value("${app.images.queue-capacity:200}") int queueCapacity) {
+        this.variantLocation = Paths.get(variantDir).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.variantLocation);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not create the directory where image variants will be stored.", ex);
+        }
+        // A full queue drops the job; the variant is queued again the next time it is requested
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Queues every variant of an uploaded image once the surrounding transaction commits.
+     */
+    public void generateVariantsAsync(String fileName) {
+        if (!isSupportedImage(fileName)) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            for (Variant variant : Variant.values()) {
+                enqueue(fileName, variant);
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #generateVariantsAsync(String)} for a download URL, if it points at our own file endpoint.
+     */
+    public void generateVariantsForUrlAsync(String fileUrl) {
+        if (fileUrl != null && fileUrl.contains(FILES_PATH)) {
+            generateVariantsAsync(fileUrl.substring(fileUrl.lastIndexOf('/') + 1));
+        }
+    }
+
+    /**
+     * Returns the cached variant if it has been generated, otherwise queues it and returns empty.
+     */
+    public Optional<Path> findVariant(String fileName, Variant variant) {
+        if (!isSupportedImage(fileName)) {
+            return Optional.empty();
+        }
+        Path path = variantPath(fileName, variant);
+        if (Files.exists(path)) {
+            return Optional.of(path);
+        }
+        enqueue(fileName, variant);
+        return Optional.empty();
+    }
+
+    public void deleteVariants(String fileName) {
+        if (!isSupportedImage(fileName)) {
+            return;
+        }
+        for (Variant variant : Variant.values()) {
+            try {
+                Files.deleteIfExists(variantPath(fileName, variant));
+            } catch (IOException ex) {
+                logger.warn("Could not delete {} variant of {}: {}", variant, fileName, ex.getMessage());
+            }
+        }
+    }
+
+    public static String variantFileName(String fileName, Variant variant) {
+        int dot = fileName.lastIndexOf('.');
+        return fileName.substring(0, dot) + "." + variant.name().toLowerCase(Locale.ROOT) + "." + outputFormat(fileName);
+    }
+
+    private void enqueue(String fileName, Variant variant) {
+        String jobKey = variantFileName(fileName, variant);
+        if (!inProgress.add(jobKey)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(fileName, variant);
+                } catch (Exception ex) {
+                    logger.warn("Could not generate {} variant of {}: {}", variant, fileName, ex.getMessage());
+                } finally {
+                    inProgress.remove(jobKey);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inProgress.remove(jobKey);
+            logger.debug("Image variant queue is full, skipping {}", jobKey);
+        }
+    }
+
+    private void generate(String fileName, Variant variant) throws IOException {
+        Path target = variantPath(fileName, variant);
+        if (Files.exists(target)) {
+            return;
+        }
+
+        Resource original = fileStorageService.loadFileAsResource(fileName);
+        BufferedImage source;
+        try (InputStream in = original.getInputStream()) {
+            source = ImageIO.read(in);
+        }
+        if (source == null) {
+            logger.debug("{} is not a readable image, no variants generated", fileName);
+            return;
+        }
+
+        String format = outputFormat(fileName);
+        BufferedImage scaled = scale(source, variant.maxDimension, "jpg".equals(format));
+        Path temp = Files.createTempFile(variantLocation, "variant-", ".tmp");
+        try {
+            write(scaled, format, temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source, int maxDimension, boolean opaque) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(width, height)); // Never upscale
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        BufferedImage scaled = new BufferedImage(targetWidth, targetHeight,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private Path variantPath(String fileName, Variant variant) {
+        return variantLocation.resolve(variantFileName(fileName, variant)).normalize();
+    }
+
+    private static boolean isSupportedImage(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png") || lower.endsWith(".gif");
+    }
+
+    // JPEG sources stay JPEG; PNG and GIF become PNG so transparency survives
+    private static String outputFormat(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".jpg") || lower.endsWith(".jpeg") ? "jpg" : "png";
+    }
+}
@@ -2,28 +2,93 @@ package com.community.management.service;
 
 import com.community.management.exception.FileStorageException;
 import com.community.management.exception.ResourceNotFoundException;
+import com.community.management.repository.FileBlobRepository;
+import com.community.management.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 @Service("localFileStorageService")
+@ConditionalOnProperty(name = "file.storage", havingValue = "local", matchIfMissing = true)
 public class LocalFileStorageService implements FileStorageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(LocalFileStorageService.class);
+
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("^[0-9a-f]{64}(\\.[a-z0-9]+)?$");
+    // UUID and SHA-256 names start with random hex, which spreads files evenly over the shard directories
+    private static final Pattern SHARDABLE_NAME = Pattern.compile("^[0-9a-fA-F]{4}[0-9a-fA-F-]*(\\.[A-Za-z0-9]+)?$");
+
     private final Path fileStorageLocation;
+    private final boolean contentAddressed;
+    private final boolean shardedLayout;
+    private final AtomicLong migratedFiles = new AtomicLong();
+    private final AtomicBoolean migrationRunning = new AtomicBoolean();
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired(required = false) // Only with file.cold-tier.type set
+    private ColdStorageTier coldStorageTier;
+
+    @Autowired(required = false)
+    private FileAccessTracker fileAccessTracker;
 
-    public LocalFileStorageService(@Value("${file.upload-dir:./uploads}") String uploadDir) {
+    // Lazy: both variant services read originals through this storage service
+    @Lazy
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Lazy
+    @Autowired
+    private CompressedVariantService compressedVariantService;
+
+    // Serialises moves of the same file between tiers; striped so the lock table never grows
+    private final Object[] tierLocks = new Object[64];
+    private final AtomicLong rehydratedFiles = new AtomicLong();
+
+    public LocalFileStorageService(@Value("${file.upload-dir:./uploads}") String uploadDir,
+                                   @Value("${file.content-addressed:false}") boolean contentAddressed,
+                                   @Value("${file.sharded-layout:false}") boolean shardedLayout) {
         this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.contentAddressed = contentAddressed;
+        this.shardedLayout = shardedLayout;
+        for (int i = 0; i < tierLocks.length; i++) {
+            tierLocks[i] = new Object();
+        }
         try {
             Files.createDirectories(this.fileStorageLocation);
         } catch (Exception ex) {
@@ -32,48 +97,101 @@ public class LocalFileStorageService implements FileStorageService {
     }
 
     @Override
+    @Transactional
     public String storeFile(MultipartFile file) {
-        String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null) {
-            throw new FileStorageException("Cannot store file with null filename.");
-        }
-        String cleanedFilename = StringUtils.cleanPath(originalFilename);
+        String fileExtension = FileStorageService.validatedExtension(file);
 
         try {
-            if (cleanedFilename.contains("..")) {
-                throw new FileStorageException("Sorry! Filename contains invalid path sequence " + cleanedFilename);
+            if (contentAddressed) {
+                return storeContentAddressed(file, fileExtension.toLowerCase());
             }
 
-            String fileExtension = "";
-            if (cleanedFilename.contains(".")) {
-                fileExtension = cleanedFilename.substring(cleanedFilename.lastIndexOf("."));
-            }
-            if (fileExtension.isBlank() || !isValidExtension(fileExtension)) {
-                 throw new FileStorageException("Invalid file type. Only PNG, JPG, GIF, JPEG are allowed.");
-            }
             String newFileName = UUID.randomUUID().toString() + fileExtension;
 
-            Path targetLocation = this.fileStorageLocation.resolve(newFileName);
+            Path targetLocation = targetPath(newFileName);
             Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
 
             return newFileName;
         } catch (IOException ex) {
-            throw new FileStorageException("Could not store file " + cleanedFilename + ". Please try again!", ex);
+            throw new FileStorageException("Could not store file " + file.getOriginalFilename() + ". Please try again!", ex);
+        }
+    }
+
+    private String storeContentAddressed(MultipartFile file, String fileExtension) throws IOException {
+        Path tempFile = Files.createTempFile(this.fileStorageLocation, "upload-", ".tmp");
+        try {
+            // The digest is computed on the same pass that writes the temp file, so the upload is read only once
+            MessageDigest digest = newSha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return moveIntoPlace(tempFile, HexFormat.of().formatHex(digest.digest()) + fileExtension);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    @Transactional
+    public String storeFile(Path source, String fileExtension, String contentType) {
+        try {
+            if (contentAddressed) {
+                MessageDigest digest = newSha256();
+                try (InputStream in = new DigestInputStream(Files.newInputStream(source), digest)) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                }
+                return moveIntoPlace(source, HexFormat.of().formatHex(digest.digest()) + fileExtension.toLowerCase());
+            }
+
+            String newFileName = UUID.randomUUID().toString() + fileExtension;
+            Files.move(source, targetPath(newFileName));
+            return newFileName;
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not store file " + source.getFileName() + ". Please try again!", ex);
+        } finally {
+            try {
+                Files.deleteIfExists(source);
+            } catch (IOException ex) {
+                logger.warn("Could not remove staged file {}: {}", source, ex.getMessage());
+            }
+        }
+    }
+
+    // The staged file must be on the same file system as the upload directory
+    private String moveIntoPlace(Path stagedFile, String newFileName) throws IOException {
+        // Taking the reference first locks the blob row, so a concurrent delete of the same content waits for us
+        fileBlobRepository.acquireReference(newFileName, Files.size(stagedFile));
+
+        if (locate(newFileName) == null) {
+            try {
+                Files.move(stagedFile, targetPath(newFileName), StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException ex) {
+                // Another upload of the same content won the race; its bytes are identical
+            }
         }
+        return newFileName;
     }
-    
-    private boolean isValidExtension(String extension) {
-        String ext = extension.toLowerCase();
-        return ext.equals(".png") || ext.equals(".jpg") || ext.equals(".jpeg") || ext.equals(".gif");
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new FileStorageException("SHA-256 is not available on this JVM.", ex);
+        }
     }
 
     @Override
     public Resource loadFileAsResource(String fileName) {
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            if (resource.exists()) {
-                return resource;
+            Path filePath = locate(fileName);
+            if (filePath == null && coldStorageTier != null) {
+                filePath = rehydrate(fileName);
+            }
+            if (fileAccessTracker != null && filePath != null) {
+                fileAccessTracker.recordAccess(fileName);
+            }
+            if (filePath != null) {
+                return new UrlResource(filePath.toUri());
             } else {
                 throw new ResourceNotFoundException("File not found " + fileName);
             }
@@ -83,12 +201,188 @@ public class LocalFileStorageService implements FileStorageService {
     }
 
     @Override
+    @Transactional
     public void deleteFile(String fileName) {
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName);
-            Files.deleteIfExists(filePath);
+            if (CONTENT_ADDRESSED_NAME.matcher(fileName).matches() && fileBlobRepository.existsById(fileName)) {
+                fileBlobRepository.releaseReference(fileName);
+                if (fileBlobRepository.deleteIfUnreferenced(fileName) == 0) {
+                    return; // Still referenced by another document or avatar
+                }
+            }
+            // Held across both tiers, so a rehydration in progress cannot write the hot copy back afterwards
+            synchronized (tierLock(fileName)) {
+                // Flat first: the migration only ever moves flat to sharded, so this order cannot miss a moving file
+                Files.deleteIfExists(flatPath(fileName));
+                if (SHARDABLE_NAME.matcher(fileName).matches()) {
+                    Files.deleteIfExists(shardedPath(fileName));
+                }
+                if (coldStorageTier != null) {
+                    coldStorageTier.delete(fileName);
+                }
+            }
+            if (fileAccessTracker != null) {
+                fileAccessTracker.forget(fileName);
+            }
+            TransactionCallbacks.afterCommit(() -> {
+                imageVariantService.deleteVariants(fileName);
+                compressedVariantService.deleteVariant(fileName);
+            });
         } catch (IOException ex) {
             throw new FileStorageException("Could not delete file " + fileName, ex);
         }
     }
+
+    /**
+     * Moves files left in the flat upload directory into their shard directories. Safe to run while the
+     * application serves traffic: each move is an atomic rename, and lookups check both locations.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateToShardedLayout() {
+        if (!shardedLayout || !migrationRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Thread migration = new Thread(() -> {
+            try (DirectoryStream<Path> flatFiles = Files.newDirectoryStream(fileStorageLocation,
+                    path -> Files.isRegularFile(path) && SHARDABLE_NAME.matcher(path.getFileName().toString()).matches())) {
+                for (Path flatFile : flatFiles) {
+                    moveToShard(flatFile);
+                }
+                logger.info("Sharded layout migration finished, {} files moved", migratedFiles.get());
+            } catch (IOException | DirectoryIteratorException ex) {
+                logger.error("Sharded layout migration stopped after {} files", migratedFiles.get(), ex);
+            } finally {
+                migrationRunning.set(false);
+            }
+        }, "storage-layout-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+
+    private void moveToShard(Path flatFile) {
+        String fileName = flatFile.getFileName().toString();
+        try {
+            Path target = shardedPath(fileName);
+            Files.createDirectories(target.getParent());
+            Files.move(flatFile, target, StandardCopyOption.ATOMIC_MOVE);
+            migratedFiles.incrementAndGet();
+        } catch (NoSuchFileException ex) {
+            // Deleted while the migration was running
+        } catch (FileAlreadyExistsException ex) {
+            // A content-addressed copy was stored sharded in the meantime; the bytes are identical
+            try {
+                Files.deleteIfExists(flatFile);
+            } catch (IOException e) {
+                logger.warn("Could not remove duplicate flat file {}: {}", fileName, e.getMessage());
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not move {} into its shard directory: {}", fileName, ex.getMessage());
+        }
+    }
+
+    /**
+     * Moves a file to the cold tier and removes the local copy. Returns the bytes moved, or 0 if the file
+     * is no longer stored locally.
+     */
+    public long moveToColdTier(String fileName) throws IOException {
+        if (coldStorageTier == null) {
+            throw new IllegalStateException("No cold storage tier is configured.");
+        }
+        synchronized (tierLock(fileName)) {
+            Path hot = locate(fileName);
+            if (hot == null) {
+                return 0;
+            }
+            long size = Files.size(hot);
+            coldStorageTier.store(fileName, hot);
+            // A download that already opened the file keeps reading it; later ones rehydrate it
+            Files.deleteIfExists(hot);
+            return size;
+        }
+    }
+
+    // Brings a cold file back under its usual local path and drops the cold copy
+    private Path rehydrate(String fileName) {
+        synchronized (tierLock(fileName)) {
+            Path hot = locate(fileName);
+            if (hot != null) {
+                return hot; // Rehydrated by a concurrent request
+            }
+            try {
+                Path temp = Files.createTempFile(fileStorageLocation, "rehydrate-", ".tmp");
+                try {
+                    if (!coldStorageTier.retrieve(fileName, temp)) {
+                        return null;
+                    }
+                    Path target = targetPath(fileName);
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    try {
+                        coldStorageTier.delete(fileName);
+                    } catch (IOException ex) {
+                        // Harmless: the next move to the cold tier overwrites it, and deleteFile removes it
+                        logger.warn("Could not remove cold copy of {}: {}", fileName, ex.getMessage());
+                    }
+                    rehydratedFiles.incrementAndGet();
+                    logger.debug("Rehydrated {} from the cold tier", fileName);
+                    return target;
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ex) {
+                throw new FileStorageException("Could not restore " + fileName + " from the cold tier", ex);
+            }
+        }
+    }
+
+    public long getRehydratedFiles() {
+        return rehydratedFiles.get();
+    }
+
+    private Object tierLock(String fileName) {
+        return tierLocks[Math.floorMod(fileName.hashCode(), tierLocks.length)];
+    }
+
+    public Map<String, Object> getLayoutMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("shardedLayout", shardedLayout);
+        metrics.put("migrationRunning", migrationRunning.get());
+        metrics.put("migratedFiles", migratedFiles.get());
+        return metrics;
+    }
+
+    private Path targetPath(String fileName) throws IOException {
+        if (!shardedLayout || !SHARDABLE_NAME.matcher(fileName).matches()) {
+            return flatPath(fileName);
+        }
+        Path target = shardedPath(fileName);
+        Files.createDirectories(target.getParent());
+        return target;
+    }
+
+    // The shard path is checked again after the flat one so a file renamed between the two checks is still found
+    private Path locate(String fileName) {
+        if (!SHARDABLE_NAME.matcher(fileName).matches()) {
+            Path flat = flatPath(fileName);
+            return Files.exists(flat) ? flat : null;
+        }
+        Path sharded = shardedPath(fileName);
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        Path flat = flatPath(fileName);
+        if (Files.exists(flat)) {
+            return flat;
+        }
+        return Files.exists(sharded) ? sharded : null;
+    }
+
+    private Path flatPath(String fileName) {
+        return this.fileStorageLocation.resolve(fileName).normalize();
+    }
+
+    // ab/cd/abcd...: two levels of 256 directories each
+    private Path shardedPath(String fileName) {
+        String prefix = fileName.substring(0, 4).toLowerCase(Locale.ROOT);
+        return this.fileStorageLocation.resolve(prefix.substring(0, 2)).resolve(prefix.substring(2, 4)).resolve(fileName);
+    }
 }
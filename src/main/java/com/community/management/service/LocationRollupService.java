@@ -0,0 +1,259 @@
+package com.community.management.service;
+
+import com.community.management.dto.response.LocationRollupResponse;
+import com.community.management.exception.ValidationException;
+import com.community.management.repository.LocationCount;
+import com.community.management.repository.UserRepository;
+import com.community.management.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Member counts by state, district, city and community, kept as one in-memory tree so leaders can drill
+ * down without a GROUP BY over the users table. The tree is loaded from a single grouped query at startup,
+ * moved by one member on every registration, location change and deletion once the change commits, and
+ * reloaded periodically so that any drift, for example from changes made outside this application, does
+ * not last. Values are grouped ignoring case, accents and spacing and shown as first seen.
+ */
+@Service
+public class LocationRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationRollupService.class);
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String[] LEVELS = {"all", "state", "district", "city", "communityName"};
+    private static final int MAX_DEPTH = LEVELS.length - 1;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node(null);
+
+    // Changes committed after a reload's read snapshot; replayed onto the new tree before it replaces the old one
+    private List<Delta> pendingDuringReload;
+    // Held by changes from just before their commit until it completes, so a reload can take its snapshot
+    // between commits: every change is then either in the snapshot or in the pending list, never both
+    private final ReentrantReadWriteLock commitGate = new ReentrantReadWriteLock();
+
+    public LocationRollupService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAtStartup() {
+        Thread load = new Thread(this::reload, "location-rollup-load");
+        load.setDaemon(true);
+        load.start();
+    }
+
+    @Scheduled(fixedDelayString = "${app.directory.rollups.refresh-interval-ms:21600000}",
+            initialDelayString = "${app.directory.rollups.refresh-interval-ms:21600000}")
+    public void reload() {
+        long started = System.currentTimeMillis();
+        Node loaded = new Node(null);
+        try {
+            List<LocationCount> counts = readOnlyTransaction.execute(status -> {
+                commitGate.writeLock().lock();
+                try {
+                    userRepository.startReadSnapshot();
+                    lock.writeLock().lock();
+                    try {
+                        pendingDuringReload = new ArrayList<>();
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                } finally {
+                    commitGate.writeLock().unlock();
+                }
+                return userRepository.countByLocation();
+            });
+            for (LocationCount count : Objects.requireNonNull(counts)) {
+                apply(loaded, new String[]{count.getState(), count.getDistrict(), count.getCity(), count.getCommunityName()},
+                        count.getMembers());
+            }
+        } catch (RuntimeException ex) {
+            logger.error("Could not load the location rollups", ex);
+            lock.writeLock().lock();
+            try {
+                pendingDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Delta delta : pendingDuringReload) {
+                apply(loaded, delta.path, delta.change);
+            }
+            pendingDuringReload = null;
+            root = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Location rollups loaded in {} ms: {} members in {} states",
+                System.currentTimeMillis() - started, loaded.count, loaded.children.size());
+    }
+
+    public void memberAddedAsync(String state, String district, String city, String communityName) {
+        String[] path = {state, district, city, communityName};
+        TransactionCallbacks.afterCommit(() -> change(path, 1), commitGate);
+    }
+
+    public void memberRemovedAsync(String state, String district, String city, String communityName) {
+        String[] path = {state, district, city, communityName};
+        TransactionCallbacks.afterCommit(() -> change(path, -1), commitGate);
+    }
+
+    public void memberMovedAsync(String oldState, String oldDistrict, String oldCity, String oldCommunityName,
+                                 String state, String district, String city, String communityName) {
+        String[] from = {oldState, oldDistrict, oldCity, oldCommunityName};
+        String[] to = {state, district, city, communityName};
+        if (samePath(from, to)) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            change(from, -1);
+            change(to, 1);
+        }, commitGate);
+    }
+
+    /**
+     * The count at the given location and its breakdown to the given number of levels below it. Later
+     * parts of the location may only be given together with the earlier ones.
+     */
+    public LocationRollupResponse getRollup(String state, String district, String city, int depth) {
+        String[] path = {state, district, city};
+        int given = 0;
+        while (given < path.length && path[given] != null && !path[given].isBlank()) {
+            given++;
+        }
+        for (int i = given; i < path.length; i++) {
+            if (path[i] != null && !path[i].isBlank()) {
+                throw new ValidationException(LEVELS[i + 1] + " requires " + LEVELS[i] + ".");
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int level = 0; level < given && node != null; level++) {
+                node = node.children.get(key(path[level]));
+            }
+            if (node == null) {
+                return LocationRollupResponse.builder()
+                        .level(LEVELS[given]).value(path[given - 1]).count(0).children(new ArrayList<>()).build();
+            }
+            return toResponse(node, given, Math.min(depth, MAX_DEPTH - given));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void change(String[] path, long change) {
+        lock.writeLock().lock();
+        try {
+            apply(root, path, change);
+            if (pendingDuringReload != null) {
+                pendingDuringReload.add(new Delta(path, change));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(Node root, String[] path, long change) {
+        Node node = root;
+        node.count += change;
+        for (String value : path) {
+            String key = key(value);
+            Node child = node.children.get(key);
+            if (child == null) {
+                if (change < 0) {
+                    return; // Not counted yet; the next reload sets it right
+                }
+                child = new Node(value);
+                node.children.put(key, child);
+            }
+            child.count += change;
+            if (child.count <= 0) {
+                node.children.remove(key);
+                return;
+            }
+            node = child;
+        }
+    }
+
+    private static LocationRollupResponse toResponse(Node node, int level, int depth) {
+        List<LocationRollupResponse> children = null;
+        if (depth > 0) {
+            children = new ArrayList<>(node.children.size());
+            for (Node child : node.children.values()) {
+                children.add(toResponse(child, level + 1, depth - 1));
+            }
+            children.sort(Comparator.comparingLong(LocationRollupResponse::getCount).reversed()
+                    .thenComparing(LocationRollupResponse::getValue, Comparator.nullsLast(Comparator.naturalOrder())));
+        }
+        return LocationRollupResponse.builder()
+                .level(LEVELS[level])
+                .value(node.value)
+                .count(node.count)
+                .children(children)
+                .build();
+    }
+
+    private static boolean samePath(String[] from, String[] to) {
+        for (int i = 0; i < from.length; i++) {
+            if (!key(from[i]).equals(key(to[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Members without a value share the "" group
+    private static String key(String value) {
+        if (value == null) {
+            return "";
+        }
+        String plain = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(plain.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private record Delta(String[] path, long change) {
+    }
+
+    private static final class Node {
+        private final String value;
+        private final Map<String, Node> children = new HashMap<>();
+        private long count;
+
+        private Node(String value) {
+            this.value = value != null && !value.isBlank() ? WHITESPACE.matcher(value.trim()).replaceAll(" ") : null;
+        }
+    }
+}
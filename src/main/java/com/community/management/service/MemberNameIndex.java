@@ -0,0 +1,409 @@
+package com.community.management.service;
+
+import com.community.management.repository.DirectoryRepository;
+import com.community.management.repository.MemberName;
+import com.community.management.util.StartupRebuild;
+import com.community.management.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram index over the display names and full names of public directory entries, for
+ * typo-tolerant name search.
+ * Names are split into words and folded (accents, case, doubled letters and a few common transliteration
+ * differences), and each distinct word is indexed once by its trigrams. A query word is compared with the
+ * indexed words that share a trigram with it, and a member scores the average, over the query words, of
+ * its best matching word. Memory therefore grows with the vocabulary of names rather than with the number
+ * of members.
+ */
+@Service
+public class MemberNameIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemberNameIndex.class);
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_WORDS_PER_NAME = 8;
+    private static final int MAX_WORD_LENGTH = 32;
+    private static final int[] NO_WORDS = new int[0];
+
+    @Autowired
+    private DirectoryRepository directoryRepository;
+
+    private final StartupRebuild startupRebuild;
+    private final double minSimilarity;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Word> words = new HashMap<>();
+    private final List<Word> wordsById = new ArrayList<>();
+    private final Deque<Integer> freeWordIds = new ArrayDeque<>();
+    private final Map<Long, int[]> postings = new HashMap<>(); // Trigram to the sorted ids of the words containing it
+    private final Map<UUID, Member> members = new HashMap<>();
+    private final List<UUID> membersByOrdinal = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+    public MemberNameIndex(PlatformTransactionManager transactionManager,
+                           @Value("${app.directory.name-search.min-similarity:0.3}") double minSimilarity) {
+        this.startupRebuild = new StartupRebuild(transactionManager, "member name index");
+        this.minSimilarity = minSimilarity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        startupRebuild.start("member-name-index-rebuild", () -> {
+            try (Stream<MemberName> names = directoryRepository.streamPublicNames()) {
+                names.forEach(this::putStreamed);
+            }
+            logger.info("Member name index rebuilt in {} ms: {} members, {} distinct words",
+                    System.currentTimeMillis() - started, size(), vocabularySize());
+        });
+    }
+
+    /**
+     * Indexes or re-indexes a public directory entry once the surrounding transaction commits.
+     */
+    public void updateAsync(UUID userId, String displayName, String fullName, boolean isPublic) {
+        TransactionCallbacks.afterCommit(() -> {
+            startupRebuild.markChanged(userId);
+            if (isPublic) {
+                put(userId, displayName, fullName);
+            } else {
+                remove(userId);
+            }
+        });
+    }
+
+    /**
+     * Replaces the full name of a member that is already indexed, or that the startup rebuild has yet to
+     * reach; members without a public entry are ignored.
+     */
+    public void updateFullNameAsync(UUID userId, String fullName) {
+        TransactionCallbacks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                if (!replaceFullNameLocked(userId, fullName)) {
+                    startupRebuild.defer(userId, () -> replaceFullNameLocked(userId, fullName));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void removeAsync(UUID userId) {
+        TransactionCallbacks.afterCommit(() -> {
+            startupRebuild.markChanged(userId);
+            remove(userId);
+        });
+    }
+
+    /**
+     * User ids of the best matching members, most similar first.
+     */
+    public List<UUID> search(String query, int limit) {
+        List<String> queryWords = fold(query);
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            // Scores are summed per member ordinal in flat arrays; boxing them in a map costs more than the lookup
+            float[] total = new float[membersByOrdinal.size()];
+            float[] best = new float[membersByOrdinal.size()];
+            int[] shared = new int[wordsById.size()];
+            for (String queryWord : queryWords) {
+                long[] queryTrigrams = trigrams(queryWord);
+                List<Integer> candidates = new ArrayList<>();
+                for (long trigram : queryTrigrams) {
+                    for (int wordId : postings.getOrDefault(trigram, NO_WORDS)) {
+                        if (shared[wordId]++ == 0) {
+                            candidates.add(wordId);
+                        }
+                    }
+                }
+                Arrays.fill(best, 0);
+                for (int wordId : candidates) {
+                    Word word = wordsById.get(wordId);
+                    float similarity = (float) shared[wordId] / (queryTrigrams.length + word.trigrams.length - shared[wordId]);
+                    shared[wordId] = 0;
+                    if (similarity < minSimilarity) {
+                        continue;
+                    }
+                    for (int m = 0; m < word.memberCount; m++) {
+                        int ordinal = word.members[m];
+                        best[ordinal] = Math.max(best[ordinal], similarity);
+                    }
+                }
+                for (int ordinal = 0; ordinal < total.length; ordinal++) {
+                    total[ordinal] += best[ordinal];
+                }
+            }
+
+            // Min-heap of the best matches so far, weakest on top
+            float threshold = (float) minSimilarity * queryWords.size();
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(ordinal -> total[ordinal]));
+            for (int ordinal = 0; ordinal < total.length; ordinal++) {
+                if (total[ordinal] < threshold || (top.size() == limit && total[ordinal] <= total[top.peek()])) {
+                    continue;
+                }
+                top.add(ordinal);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            UUID[] ranked = new UUID[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = membersByOrdinal.get(top.poll());
+            }
+            return List.of(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return members.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int vocabularySize() {
+        lock.readLock().lock();
+        try {
+            return words.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putStreamed(MemberName name) {
+        lock.writeLock().lock();
+        try {
+            startupRebuild.load(name.getUserId(),
+                    () -> putLocked(name.getUserId(), name.getDisplayName(), name.getFullName()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean replaceFullNameLocked(UUID userId, String fullName) {
+        Member member = members.get(userId);
+        if (member == null) {
+            return false;
+        }
+        putLocked(userId, member.displayName(), fullName);
+        return true;
+    }
+
+    private void put(UUID userId, String displayName, String fullName) {
+        lock.writeLock().lock();
+        try {
+            putLocked(userId, displayName, fullName);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(UUID userId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(UUID userId, String displayName, String fullName) {
+        removeLocked(userId);
+        Set<String> folded = new LinkedHashSet<>(fold(displayName));
+        folded.addAll(fold(fullName));
+        Integer freeOrdinal = freeOrdinals.poll();
+        int ordinal = freeOrdinal != null ? freeOrdinal : membersByOrdinal.size();
+        if (freeOrdinal != null) {
+            membersByOrdinal.set(ordinal, userId);
+        } else {
+            membersByOrdinal.add(userId);
+        }
+        int[] wordIds = new int[folded.size()];
+        int i = 0;
+        for (String text : folded) {
+            Word word = words.computeIfAbsent(text, this::newWord);
+            word.addMember(ordinal);
+            wordIds[i++] = word.id;
+        }
+        members.put(userId, new Member(ordinal, displayName, wordIds));
+    }
+
+    private void removeLocked(UUID userId) {
+        Member member = members.remove(userId);
+        if (member == null) {
+            return;
+        }
+        for (int wordId : member.wordIds()) {
+            Word word = wordsById.get(wordId);
+            word.removeMember(member.ordinal());
+            if (word.memberCount == 0) {
+                dropWord(word);
+            }
+        }
+        membersByOrdinal.set(member.ordinal(), null);
+        freeOrdinals.push(member.ordinal());
+    }
+
+    private Word newWord(String text) {
+        Integer freeId = freeWordIds.poll();
+        int id = freeId != null ? freeId : wordsById.size();
+        Word word = new Word(id, text, trigrams(text));
+        if (freeId != null) {
+            wordsById.set(id, word);
+        } else {
+            wordsById.add(word);
+        }
+        for (long trigram : word.trigrams) {
+            int[] ids = postings.getOrDefault(trigram, NO_WORDS);
+            int at = -Arrays.binarySearch(ids, id) - 1;
+            int[] grown = new int[ids.length + 1];
+            System.arraycopy(ids, 0, grown, 0, at);
+            grown[at] = id;
+            System.arraycopy(ids, at, grown, at + 1, ids.length - at);
+            postings.put(trigram, grown);
+        }
+        return word;
+    }
+
+    private void dropWord(Word word) {
+        words.remove(word.text);
+        for (long trigram : word.trigrams) {
+            int[] ids = postings.get(trigram);
+            int at = Arrays.binarySearch(ids, word.id);
+            if (ids.length == 1) {
+                postings.remove(trigram);
+                continue;
+            }
+            int[] shrunk = new int[ids.length - 1];
+            System.arraycopy(ids, 0, shrunk, 0, at);
+            System.arraycopy(ids, at + 1, shrunk, at, ids.length - at - 1);
+            postings.put(trigram, shrunk);
+        }
+        wordsById.set(word.id, null);
+        freeWordIds.push(word.id);
+    }
+
+    static List<String> fold(String name) {
+        if (name == null || name.isBlank()) {
+            return List.of();
+        }
+        String plain = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        List<String> folded = new ArrayList<>();
+        for (String word : NON_WORD.split(plain)) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String phonetic = foldSpelling(word);
+            folded.add(phonetic.length() > MAX_WORD_LENGTH ? phonetic.substring(0, MAX_WORD_LENGTH) : phonetic);
+            if (folded.size() == MAX_WORDS_PER_NAME) {
+                break;
+            }
+        }
+        return folded;
+    }
+
+    // Evens out spellings that commonly differ between transliterations: Laxmi/Lakshmi, Vijay/Wijay,
+    // Bhavna/Bavna, Deepak/Dipak, Mohan/Muhan. Trigram similarity absorbs what is left.
+    private static String foldSpelling(String word) {
+        StringBuilder folded = new StringBuilder(word.length() + 2);
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c == 'x') {
+                folded.append("ks");
+                continue;
+            }
+            if (c == 'w') {
+                c = 'v';
+            } else if (c == 'q') {
+                c = 'k';
+            } else if (c == 'o') {
+                c = 'u';
+            } else if (c == 'e') {
+                c = 'i';
+            }
+            char previous = folded.length() > 0 ? folded.charAt(folded.length() - 1) : 0;
+            boolean aspirate = c == 'h' && previous >= 'a' && previous <= 'z' && "aiu".indexOf(previous) < 0;
+            if (aspirate || c == previous) {
+                continue;
+            }
+            folded.append(c);
+        }
+        return folded.toString();
+    }
+
+    // Padded like pg_trgm, so the start of a word weighs more than its middle
+    private static long[] trigrams(String word) {
+        String padded = "  " + word + " ";
+        Set<Long> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+        }
+        return trigrams.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private record Member(int ordinal, String displayName, int[] wordIds) {
+    }
+
+    private static final class Word {
+        private final int id;
+        private final String text;
+        private final long[] trigrams;
+        private int[] members = new int[1]; // Ordinals of the members whose names contain the word
+        private int memberCount;
+
+        private Word(int id, String text, long[] trigrams) {
+            this.id = id;
+            this.text = text;
+            this.trigrams = trigrams;
+        }
+
+        private void addMember(int ordinal) {
+            if (memberCount == members.length) {
+                members = Arrays.copyOf(members, memberCount * 2);
+            }
+            members[memberCount++] = ordinal;
+        }
+
+        private void removeMember(int ordinal) {
+            for (int i = 0; i < memberCount; i++) {
+                if (members[i] == ordinal) {
+                    members[i] = members[--memberCount];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package com.community.management.service;
+
+import com.community.management.repository.EventRegistrationRepository;
+import com.community.management.repository.MemberCommunity;
+import com.community.management.repository.Participation;
+import com.community.management.repository.UserRepository;
+import com.community.management.repository.VolunteerRegistrationRepository;
+import com.community.management.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * "Members you may know": an in-memory weighted graph of members who took part in the same events and
+ * volunteer opportunities. Every member keeps an adjacency list of the members they share activities with,
+ * weighted by how many and what kind, and it is updated as registrations come and go, so suggestions are
+ * read straight from it. Members of the same community and district get a bonus, and fill the list when
+ * there are too few co-participants.
+ * Activities with more than {@code app.directory.suggestions.max-activity-size} participants add no edges:
+ * a large festival says little about who knows whom, and its n² pairs would dominate the graph.
+ */
+@Service
+public class MemberSuggestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemberSuggestionService.class);
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final float SAME_COMMUNITY_WEIGHT = 1.5f;
+
+    public enum ActivityKind {
+        EVENT(1f), VOLUNTEER(2f); // Working a shift together is a stronger tie than attending the same event
+
+        private final float weight;
+
+        ActivityKind(float weight) {
+            this.weight = weight;
+        }
+    }
+
+    public record Suggestion(UUID userId, double score, int sharedEvents, int sharedOpportunities,
+                             boolean sameCommunity) {
+    }
+
+    @Autowired
+    private EventRegistrationRepository eventRegistrationRepository;
+
+    @Autowired
+    private VolunteerRegistrationRepository volunteerRegistrationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxActivitySize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Graph graph;
+
+    // Changes committed while the startup rebuild reads older rows. Every change is idempotent, so they are
+    // simply replayed onto the rebuilt graph before it replaces the live one.
+    private List<Consumer<Graph>> pendingDuringRebuild;
+
+    public MemberSuggestionService(PlatformTransactionManager transactionManager,
+                                   @Value("${app.directory.suggestions.max-activity-size:100}") int maxActivitySize) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxActivitySize = maxActivitySize;
+        this.graph = new Graph(maxActivitySize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Thread rebuild = new Thread(() -> {
+            long started = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Graph rebuilt = new Graph(maxActivitySize);
+            try {
+                // Memberships first and edges once at the end, so each activity's pairs are visited only once
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<Participation> rows = eventRegistrationRepository.streamParticipations()) {
+                        rows.forEach(row -> rebuilt.addMembership(row.getUserId(), ActivityKind.EVENT, row.getActivityId()));
+                    }
+                    try (Stream<Participation> rows = volunteerRegistrationRepository.streamParticipations()) {
+                        rows.forEach(row -> rebuilt.addMembership(row.getUserId(), ActivityKind.VOLUNTEER, row.getActivityId()));
+                    }
+                    try (Stream<MemberCommunity> rows = userRepository.streamCommunities()) {
+                        rows.forEach(row -> rebuilt.setCommunity(row.getUserId(), row.getDistrict(), row.getCommunityName()));
+                    }
+                });
+                rebuilt.linkAll();
+            } catch (RuntimeException ex) {
+                logger.error("Could not rebuild the member suggestion graph", ex);
+                lock.writeLock().lock();
+                try {
+                    pendingDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild.forEach(change -> change.accept(rebuilt));
+                pendingDuringRebuild = null;
+                graph = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Member suggestion graph rebuilt in {} ms: {} members, {} activities, {} edges",
+                    System.currentTimeMillis() - started, rebuilt.members.size(), rebuilt.activities.size(),
+                    rebuilt.edgeCount());
+        }, "member-suggestion-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    public void joinAsync(UUID userId, ActivityKind kind, UUID activityId) {
+        afterCommit(graph -> graph.join(userId, kind, activityId));
+    }
+
+    public void leaveAsync(UUID userId, ActivityKind kind, UUID activityId) {
+        afterCommit(graph -> graph.leave(userId, kind, activityId));
+    }
+
+    public void removeActivityAsync(ActivityKind kind, UUID activityId) {
+        afterCommit(graph -> graph.removeActivity(kind, activityId));
+    }
+
+    public void updateCommunityAsync(UUID userId, String district, String communityName) {
+        afterCommit(graph -> graph.setCommunity(userId, district, communityName));
+    }
+
+    public void removeMemberAsync(UUID userId) {
+        afterCommit(graph -> graph.removeMember(userId));
+    }
+
+    /**
+     * Up to {@code limit} members the given member may know, strongest tie first.
+     */
+    public List<Suggestion> suggest(UUID userId, int limit) {
+        lock.readLock().lock();
+        try {
+            return graph.suggest(userId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void afterCommit(Consumer<Graph> change) {
+        TransactionCallbacks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                change.accept(graph);
+                if (pendingDuringRebuild != null) {
+                    pendingDuringRebuild.add(change);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private static final class Graph {
+        private final int maxActivitySize;
+        private final Map<UUID, Member> members = new HashMap<>();
+        private final Map<ActivityKey, Activity> activities = new HashMap<>();
+        private final Map<String, Set<Member>> communities = new HashMap<>();
+
+        private Graph(int maxActivitySize) {
+            this.maxActivitySize = maxActivitySize;
+        }
+
+        // Used while rebuilding: records the membership only, linkAll() adds the edges afterwards
+        private void addMembership(UUID userId, ActivityKind kind, UUID activityId) {
+            Member member = members.computeIfAbsent(userId, Member::new);
+            Activity activity = activities.computeIfAbsent(new ActivityKey(kind, activityId), Activity::new);
+            if (activity.participants.add(member)) {
+                member.activities.add(activity);
+            }
+        }
+
+        private void linkAll() {
+            for (Activity activity : activities.values()) {
+                if (activity.participants.size() <= maxActivitySize) {
+                    linkPairs(activity, activity.key.kind.weight);
+                }
+            }
+        }
+
+        private void join(UUID userId, ActivityKind kind, UUID activityId) {
+            Member member = members.computeIfAbsent(userId, Member::new);
+            Activity activity = activities.computeIfAbsent(new ActivityKey(kind, activityId), Activity::new);
+            if (!activity.participants.add(member)) {
+                return;
+            }
+            member.activities.add(activity);
+            int size = activity.participants.size();
+            float weight = kind.weight;
+            if (size <= maxActivitySize) {
+                for (Member other : activity.participants) {
+                    if (other != member) {
+                        link(member, other, weight);
+                    }
+                }
+            } else if (size == maxActivitySize + 1) {
+                // Just grew too large: take back the edges it added while it was small
+                activity.participants.remove(member);
+                linkPairs(activity, -weight);
+                activity.participants.add(member);
+            }
+        }
+
+        private void leave(UUID userId, ActivityKind kind, UUID activityId) {
+            Member member = members.get(userId);
+            Activity activity = activities.get(new ActivityKey(kind, activityId));
+            if (member == null || activity == null || !activity.participants.remove(member)) {
+                return;
+            }
+            member.activities.remove(activity);
+            int size = activity.participants.size();
+            float weight = kind.weight;
+            if (size + 1 <= maxActivitySize) {
+                for (Member other : activity.participants) {
+                    link(member, other, -weight);
+                }
+            } else if (size == maxActivitySize) {
+                linkPairs(activity, weight); // Small enough again
+            }
+            if (activity.participants.isEmpty()) {
+                activities.remove(activity.key);
+            }
+            dropIfIsolated(member);
+        }
+
+        private void removeActivity(ActivityKind kind, UUID activityId) {
+            Activity activity = activities.remove(new ActivityKey(kind, activityId));
+            if (activity == null) {
+                return;
+            }
+            if (activity.participants.size() <= maxActivitySize) {
+                linkPairs(activity, -kind.weight);
+            }
+            for (Member member : activity.participants) {
+                member.activities.remove(activity);
+                dropIfIsolated(member);
+            }
+        }
+
+        private void setCommunity(UUID userId, String district, String communityName) {
+            String community = communityKey(district, communityName);
+            Member member = community != null ? members.computeIfAbsent(userId, Member::new) : members.get(userId);
+            if (member == null || Objects.equals(member.community, community)) {
+                return;
+            }
+            leaveCommunity(member);
+            member.community = community;
+            if (community != null) {
+                communities.computeIfAbsent(community, key -> new HashSet<>()).add(member);
+            }
+            dropIfIsolated(member);
+        }
+
+        private void removeMember(UUID userId) {
+            Member member = members.get(userId);
+            if (member == null) {
+                return;
+            }
+            for (Activity activity : new ArrayList<>(member.activities)) {
+                leave(userId, activity.key.kind, activity.key.id);
+            }
+            leaveCommunity(member);
+            member.community = null;
+            members.remove(userId);
+        }
+
+        private List<Suggestion> suggest(UUID userId, int limit) {
+            Member member = members.get(userId);
+            if (member == null || limit <= 0) {
+                return new ArrayList<>();
+            }
+            Comparator<Map.Entry<Member, Float>> byScore = Map.Entry.comparingByValue();
+            PriorityQueue<Map.Entry<Member, Float>> top = new PriorityQueue<>(limit + 1, byScore);
+            for (Map.Entry<Member, Float> neighbour : member.neighbours.entrySet()) {
+                float score = neighbour.getValue() + (sameCommunity(member, neighbour.getKey()) ? SAME_COMMUNITY_WEIGHT : 0);
+                offer(top, Map.entry(neighbour.getKey(), score), limit);
+            }
+            if (top.size() < limit && member.community != null) {
+                // Too few co-participants: neighbours from the same community, the most active first
+                Comparator<Map.Entry<Member, Float>> byActivity = Comparator.comparingInt(entry -> entry.getKey().activities.size());
+                PriorityQueue<Map.Entry<Member, Float>> fill = new PriorityQueue<>(byActivity);
+                int wanted = limit - top.size();
+                for (Member other : communities.get(member.community)) {
+                    if (other != member && !member.neighbours.containsKey(other)) {
+                        offer(fill, Map.entry(other, SAME_COMMUNITY_WEIGHT), wanted);
+                    }
+                }
+                top.addAll(fill);
+            }
+
+            List<Map.Entry<Member, Float>> ranked = new ArrayList<>(top);
+            ranked.sort(byScore.reversed()
+                    .thenComparing(entry -> entry.getKey().activities.size(), Comparator.reverseOrder()));
+            List<Suggestion> suggestions = new ArrayList<>(ranked.size());
+            for (Map.Entry<Member, Float> entry : ranked) {
+                Member other = entry.getKey();
+                int sharedEvents = 0;
+                int sharedOpportunities = 0;
+                Set<Activity> smaller = member.activities.size() <= other.activities.size() ? member.activities : other.activities;
+                Set<Activity> larger = smaller == member.activities ? other.activities : member.activities;
+                for (Activity activity : smaller) {
+                    if (larger.contains(activity)) {
+                        if (activity.key.kind == ActivityKind.EVENT) {
+                            sharedEvents++;
+                        } else {
+                            sharedOpportunities++;
+                        }
+                    }
+                }
+                suggestions.add(new Suggestion(other.userId, entry.getValue(), sharedEvents, sharedOpportunities,
+                        sameCommunity(member, other)));
+            }
+            return suggestions;
+        }
+
+        private long edgeCount() {
+            long degrees = 0;
+            for (Member member : members.values()) {
+                degrees += member.neighbours.size();
+            }
+            return degrees / 2;
+        }
+
+        private static <T> void offer(PriorityQueue<T> top, T candidate, int limit) {
+            top.add(candidate);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        private static boolean sameCommunity(Member member, Member other) {
+            return member.community != null && member.community.equals(other.community);
+        }
+
+        private void linkPairs(Activity activity, float weight) {
+            List<Member> participants = new ArrayList<>(activity.participants);
+            for (int i = 0; i < participants.size(); i++) {
+                for (int j = i + 1; j < participants.size(); j++) {
+                    link(participants.get(i), participants.get(j), weight);
+                }
+            }
+        }
+
+        private static void link(Member a, Member b, float weight) {
+            adjust(a, b, weight);
+            adjust(b, a, weight);
+        }
+
+        // Float sums of whole weights stay exact, so an edge whose activities are all gone returns to zero
+        private static void adjust(Member from, Member to, float weight) {
+            float updated = from.neighbours.getOrDefault(to, 0f) + weight;
+            if (updated > 0) {
+                from.neighbours.put(to, updated);
+            } else {
+                from.neighbours.remove(to);
+            }
+        }
+
+        private void leaveCommunity(Member member) {
+            if (member.community == null) {
+                return;
+            }
+            Set<Member> community = communities.get(member.community);
+            if (community != null) {
+                community.remove(member);
+                if (community.isEmpty()) {
+                    communities.remove(member.community);
+                }
+            }
+        }
+
+        private void dropIfIsolated(Member member) {
+            if (member.activities.isEmpty() && member.community == null && member.neighbours.isEmpty()) {
+                members.remove(member.userId);
+            }
+        }
+
+        // Members without a community name are not grouped; the district narrows common names such as "Ward 5"
+        private static String communityKey(String district, String communityName) {
+            if (communityName == null || communityName.isBlank()) {
+                return null;
+            }
+            return fold(district) + "|" + fold(communityName);
+        }
+
+        private static String fold(String value) {
+            if (value == null) {
+                return "";
+            }
+            String plain = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+            return WHITESPACE.matcher(plain.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private record ActivityKey(ActivityKind kind, UUID id) {
+    }
+
+    private static final class Activity {
+        private final ActivityKey key;
+        private final Set<Member> participants = new LinkedHashSet<>();
+
+        private Activity(ActivityKey key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Member {
+        private final UUID userId;
+        private final Set<Activity> activities = new HashSet<>();
+        private final Map<Member, Float> neighbours = new HashMap<>(); // The adjacency list: tie strength by member
+        private String community;
+
+        private Member(UUID userId) {
+            this.userId = userId;
+        }
+    }
+}
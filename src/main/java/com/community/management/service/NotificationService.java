@@ -1,5 +1,6 @@
 package com.community.management.service;
 
+import com.community.management.dto.request.CreateNotificationRequest;
 import com.community.management.dto.response.NotificationResponse;
 import com.community.management.entity.Notification;
 import com.community.management.entity.User;
@@ -11,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -40,6 +42,22 @@ public class NotificationService {
         return mapNotificationToResponse(savedNotification);
     }
 
+    @Transactional
+    public int createNotificationsInBatch(List<CreateNotificationRequest> requests) {
+        List<Notification> notifications = new ArrayList<>(requests.size());
+        for (CreateNotificationRequest request : requests) {
+            Notification notification = new Notification();
+            notification.setUser(userRepository.getReferenceById(request.getUserId())); // No lookup per row
+            notification.setMessage(request.getMessage());
+            notification.setType(request.getType());
+            notification.setRelatedEntityId(request.getRelatedEntityId());
+            notification.setRead(false);
+            notifications.add(notification);
+        }
+        notificationRepository.saveAll(notifications);
+        return notifications.size();
+    }
+
     @Transactional(readOnly = true)
     public List<NotificationResponse> getUserNotifications(UserPrincipal currentUser) {
         return notificationRepository.findByUserIdOrderByCreatedAtDesc(currentUser.getId()).stream()
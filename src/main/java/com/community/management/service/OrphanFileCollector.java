@@ -0,0 +1,286 @@
+package com.community.management.service;
+
+import com.community.management.exception.ConcurrencyConflictException;
+import com.community.management.repository.DocumentRepository;
+import com.community.management.repository.EventRepository;
+import com.community.management.repository.FileBlobRepository;
+import com.community.management.repository.UserRepository;
+import com.community.management.security.FileUrlSigner;
+import com.community.management.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Removes uploaded files that no document, avatar or event image refers to any more.
+ * The mark phase streams every referenced file name from the database into a Bloom filter, so memory
+ * stays at a few bits per row. The sweep walks the upload directory in batches; names the filter has
+ * never seen are re-checked exactly against the database before deletion, which also protects files
+ * referenced after the mark phase. Files younger than the grace period are never touched, so an upload
+ * whose row is not committed yet survives.
+ */
+@Service
+@ConditionalOnProperty(name = "file.storage", havingValue = "local", matchIfMissing = true)
+public class OrphanFileCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrphanFileCollector.class);
+    private static final Pattern STORED_NAME = Pattern.compile(
+            "^([0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|[0-9a-f]{64})(\\.[A-Za-z0-9]+)?$");
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("^[0-9a-f]{64}(\\.[a-z0-9]+)?$");
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private CompressedVariantService compressedVariantService;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate transactionTemplate;
+    private final Path fileStorageLocation;
+    private final Set<Path> skippedDirectories;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final long batchPauseMillis;
+    private final double falsePositiveRate;
+    private final boolean enabled;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Map<String, Object> lastReport = Map.of();
+
+    public OrphanFileCollector(PlatformTransactionManager transactionManager,
+                               @Value("${file.upload-dir:./uploads}") String uploadDir,
+                               @Value("${app.images.variant-dir:./uploads/variants}") String variantDir,
+                               @Value("${app.uploads.staging-dir:./uploads/staging}") String stagingDir,
+                               @Value("${app.storage-gc.grace-hours:24}") long graceHours,
+                               @Value("${app.storage-gc.batch-size:500}") int batchSize,
+                               @Value("${app.storage-gc.batch-pause-ms:50}") long batchPauseMillis,
+                               @Value("${app.storage-gc.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${app.storage-gc.enabled:true}") boolean enabled) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.skippedDirectories = Set.of(Paths.get(variantDir).toAbsolutePath().normalize(),
+                Paths.get(stagingDir).toAbsolutePath().normalize());
+        this.gracePeriod = Duration.ofHours(graceHours);
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+        this.falsePositiveRate = falsePositiveRate;
+        this.enabled = enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage-gc.interval-ms:21600000}",
+            initialDelayString = "${app.storage-gc.initial-delay-ms:600000}")
+    public void scheduledCollection() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            collect();
+        } catch (ConcurrencyConflictException ex) {
+            logger.debug("Skipping scheduled orphan collection: {}", ex.getMessage());
+        }
+    }
+
+    public Map<String, Object> collect() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConcurrencyConflictException("An orphan file collection is already running.");
+        }
+        try {
+            Report report = new Report();
+            BloomFilter referenced = markReferencedFiles(report);
+            sweep(referenced, Instant.now().minus(gracePeriod), report);
+            lastReport = report.toMap();
+            logger.info("Orphan file collection removed {} files and reclaimed {} bytes ({} scanned)",
+                    report.deleted, report.bytesReclaimed, report.scanned);
+            return lastReport;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getLastReport() {
+        return lastReport;
+    }
+
+    private BloomFilter markReferencedFiles(Report report) {
+        long expected = documentRepository.count() + userRepository.count() + eventRepository.count();
+        // A fresh seed each run means a name that collides in this filter is unlikely to collide next time
+        BloomFilter filter = new BloomFilter(expected, falsePositiveRate, ThreadLocalRandom.current().nextLong());
+        readOnlyTransaction.executeWithoutResult(status -> {
+            addFileNames(filter, documentRepository.streamFileUrls(), report);
+            addFileNames(filter, userRepository.streamAvatarUrls(), report);
+            addFileNames(filter, eventRepository.streamImageUrls(), report);
+        });
+        report.filterBytes = filter.sizeInBytes();
+        return filter;
+    }
+
+    private void addFileNames(BloomFilter filter, Stream<String> urls, Report report) {
+        try (urls) {
+            urls.forEach(url -> {
+                String plainUrl = FileUrlSigner.unsigned(url); // Older event rows may hold a signed link
+                filter.add(plainUrl.substring(plainUrl.lastIndexOf('/') + 1));
+                report.referenced++;
+            });
+        }
+    }
+
+    private void sweep(BloomFilter referenced, Instant cutoff, Report report) {
+        List<Candidate> batch = new ArrayList<>(batchSize);
+        try {
+            Files.walkFileTree(fileStorageLocation, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    return skippedDirectories.contains(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String fileName = file.getFileName().toString();
+                    if (!attrs.isRegularFile() || !STORED_NAME.matcher(fileName).matches()) {
+                        return FileVisitResult.CONTINUE; // Temp files, image variants and anything we did not write
+                    }
+                    report.scanned++;
+                    if (attrs.lastModifiedTime().toInstant().isAfter(cutoff) || referenced.mightContain(fileName)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    batch.add(new Candidate(file, fileName, attrs.size()));
+                    if (batch.size() >= batchSize) {
+                        deleteOrphans(batch, report);
+                        batch.clear();
+                        pause();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                    return FileVisitResult.CONTINUE; // Deleted or moved by the layout migration while we walked
+                }
+            });
+            if (!batch.isEmpty()) {
+                deleteOrphans(batch, report);
+            }
+        } catch (IOException ex) {
+            logger.error("Orphan file sweep of {} stopped early", fileStorageLocation, ex);
+        }
+    }
+
+    private void deleteOrphans(List<Candidate> candidates, Report report) {
+        Set<String> names = candidates.stream().map(Candidate::fileName).collect(Collectors.toSet());
+        transactionTemplate.executeWithoutResult(status -> {
+            // Lock shared blobs first so an upload that is reusing one of them finishes before the exact check
+            Set<String> contentAddressed = names.stream()
+                    .filter(name -> CONTENT_ADDRESSED_NAME.matcher(name).matches())
+                    .collect(Collectors.toSet());
+            if (!contentAddressed.isEmpty()) {
+                fileBlobRepository.findByFileNameIn(contentAddressed);
+            }
+
+            Set<String> stillReferenced = new HashSet<>(documentRepository.findReferencedFileNames(names));
+            stillReferenced.addAll(userRepository.findReferencedFileNames(names));
+            stillReferenced.addAll(eventRepository.findReferencedFileNames(names));
+            report.referencedAfterMark += stillReferenced.size();
+
+            List<String> blobsToDelete = new ArrayList<>();
+            for (Candidate candidate : candidates) {
+                if (stillReferenced.contains(candidate.fileName())) {
+                    continue;
+                }
+                try {
+                    if (Files.deleteIfExists(candidate.path())) {
+                        report.deleted++;
+                        report.bytesReclaimed += candidate.size();
+                    }
+                    imageVariantService.deleteVariants(candidate.fileName());
+                    compressedVariantService.deleteVariant(candidate.fileName());
+                    if (contentAddressed.contains(candidate.fileName())) {
+                        blobsToDelete.add(candidate.fileName());
+                    }
+                } catch (IOException ex) {
+                    logger.warn("Could not delete orphaned file {}: {}", candidate.path(), ex.getMessage());
+                }
+            }
+            if (!blobsToDelete.isEmpty()) {
+                fileBlobRepository.deleteAllByIdInBatch(blobsToDelete);
+            }
+        });
+    }
+
+    private void pause() {
+        if (batchPauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(batchPauseMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Candidate(Path path, String fileName, long size) {
+    }
+
+    private static final class Report {
+        private final Instant startedAt = Instant.now();
+        private long referenced;
+        private long filterBytes;
+        private long scanned;
+        private long referencedAfterMark;
+        private long deleted;
+        private long bytesReclaimed;
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("startedAt", startedAt.toString());
+            map.put("durationMillis", Duration.between(startedAt, Instant.now()).toMillis());
+            map.put("referencedFiles", referenced);
+            map.put("filterBytes", filterBytes);
+            map.put("filesScanned", scanned);
+            map.put("referencedAfterMark", referencedAfterMark);
+            map.put("orphansDeleted", deleted);
+            map.put("bytesReclaimed", bytesReclaimed);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.community.management.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A stored file that can open a stream over a byte range without reading the bytes before it.
+ */
+public interface RangeReadableResource extends Resource {
+    InputStream getInputStream(long start, long endInclusive) throws IOException;
+}
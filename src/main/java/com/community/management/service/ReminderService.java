@@ -0,0 +1,286 @@
+package com.community.management.service;
+
+import com.community.management.dto.request.CreateNotificationRequest;
+import com.community.management.repository.EventRegistrationRepository;
+import com.community.management.repository.NotificationRepository;
+import com.community.management.repository.ReminderTarget;
+import com.community.management.repository.VolunteerRegistrationRepository;
+import com.community.management.util.HierarchicalTimingWheel;
+import com.community.management.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sends reminders ahead of event and volunteer shift start times.
+ * Pending reminders live in a {@link HierarchicalTimingWheel} that is rebuilt from the registrations
+ * tables at startup and updated as members register and unregister, so no periodic table scan is needed.
+ */
+@Service
+public class ReminderService {
+
+    public static final String EVENT_REMINDER_TYPE = "event_reminder";
+    public static final String VOLUNTEER_REMINDER_TYPE = "volunteer_reminder";
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderService.class);
+    private static final DateTimeFormatter START_FORMAT = DateTimeFormatter.ofPattern("MMM d, yyyy 'at' h:mm a");
+
+    private enum Kind { EVENT, VOLUNTEER }
+
+    @Autowired
+    private EventRegistrationRepository eventRegistrationRepository;
+
+    @Autowired
+    private VolunteerRegistrationRepository volunteerRegistrationRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Value("${app.reminders.lead-minutes:1440,60}")
+    private List<Long> leadMinutes;
+
+    @Value("${app.reminders.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.reminders.retry-delay-seconds:60}")
+    private long retryDelaySeconds;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<String, Reminder> pending = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel<String> wheel;
+
+    public ReminderService(@Value("${app.reminders.tick-seconds:60}") long tickSeconds,
+                           @Value("${app.reminders.wheel-size:64}") int wheelSize,
+                           @Value("${app.reminders.wheel-levels:3}") int wheelLevels) {
+        this.wheel = new HierarchicalTimingWheel<>(Duration.ofSeconds(tickSeconds).toMillis(), wheelSize, wheelLevels,
+                System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverFromDatabase() {
+        LocalDateTime now = LocalDateTime.now();
+        long maxLead = leadMinutes.stream().mapToLong(Long::longValue).max().orElse(0);
+        Map<String, LocalDateTime> alreadySent = loadSentReminders(now.minusMinutes(maxLead));
+
+        int scheduled = 0;
+        for (ReminderTarget target : eventRegistrationRepository.findUpcomingReminderTargets(now)) {
+            scheduled += scheduleRecovered(Kind.EVENT, target, now, alreadySent);
+        }
+        for (ReminderTarget target : volunteerRegistrationRepository.findUpcomingReminderTargets(now)) {
+            scheduled += scheduleRecovered(Kind.VOLUNTEER, target, now, alreadySent);
+        }
+        logger.info("Recovered {} pending reminders from the database", scheduled);
+    }
+
+    public void scheduleEventRegistration(UUID registrationId) {
+        TransactionCallbacks.afterCommit(() -> eventRegistrationRepository
+                .findReminderTargetsByIds(List.of(registrationId))
+                .forEach(target -> scheduleAll(Kind.EVENT, target, LocalDateTime.now())));
+    }
+
+    public void scheduleVolunteerRegistration(UUID registrationId) {
+        TransactionCallbacks.afterCommit(() -> volunteerRegistrationRepository
+                .findReminderTargetsByIds(List.of(registrationId))
+                .forEach(target -> scheduleAll(Kind.VOLUNTEER, target, LocalDateTime.now())));
+    }
+
+    public void cancelEventRegistration(UUID registrationId) {
+        TransactionCallbacks.afterCommit(() -> cancelAll(Kind.EVENT, registrationId));
+    }
+
+    public void cancelVolunteerRegistration(UUID registrationId) {
+        TransactionCallbacks.afterCommit(() -> cancelAll(Kind.VOLUNTEER, registrationId));
+    }
+
+    public void rescheduleEvent(UUID eventId) {
+        TransactionCallbacks.afterCommit(() -> eventRegistrationRepository
+                .findReminderTargetsByEventId(eventId)
+                .forEach(target -> scheduleAll(Kind.EVENT, target, LocalDateTime.now())));
+    }
+
+    public void rescheduleOpportunity(UUID opportunityId) {
+        TransactionCallbacks.afterCommit(() -> volunteerRegistrationRepository
+                .findReminderTargetsByOpportunityId(opportunityId)
+                .forEach(target -> scheduleAll(Kind.VOLUNTEER, target, LocalDateTime.now())));
+    }
+
+    @Scheduled(fixedDelayString = "${app.reminders.poll-interval-ms:15000}")
+    public void dispatchDueReminders() {
+        List<Reminder> due = new ArrayList<>();
+        for (String key : wheel.advanceTo(System.currentTimeMillis())) {
+            Reminder reminder = pending.remove(key);
+            if (reminder != null) {
+                due.add(reminder);
+            }
+        }
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Reminder> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                dispatchBatch(batch);
+            } catch (RuntimeException ex) {
+                // The batch left the wheel before it was stored; put it back so it is not lost until a restart
+                logger.error("Could not send {} reminders, retrying in {} s", batch.size(), retryDelaySeconds, ex);
+                requeue(batch);
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        return wheel.size();
+    }
+
+    private void dispatchBatch(List<Reminder> batch) {
+        Map<Kind, List<Reminder>> byKind = batch.stream().collect(Collectors.groupingBy(r -> r.kind));
+        List<CreateNotificationRequest> notifications = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Map.Entry<Kind, List<Reminder>> entry : byKind.entrySet()) {
+            Kind kind = entry.getKey();
+            List<UUID> ids = entry.getValue().stream().map(r -> r.registrationId).distinct().collect(Collectors.toList());
+            // Re-read in one query so cancelled registrations and rescheduled start times are honoured
+            Map<UUID, ReminderTarget> current = (kind == Kind.EVENT
+                    ? eventRegistrationRepository.findReminderTargetsByIds(ids)
+                    : volunteerRegistrationRepository.findReminderTargetsByIds(ids)).stream()
+                    .collect(Collectors.toMap(ReminderTarget::getRegistrationId, Function.identity()));
+
+            for (Reminder reminder : entry.getValue()) {
+                ReminderTarget target = current.get(reminder.registrationId);
+                if (target == null || !target.getStartsAt().isAfter(now)) {
+                    continue;
+                }
+                if (!Objects.equals(target.getStartsAt(), reminder.startsAt)) {
+                    scheduleAll(kind, target, now);
+                    continue;
+                }
+                notifications.add(new CreateNotificationRequest(target.getUserId(), buildMessage(kind, target),
+                        typeOf(kind), target.getTargetId()));
+            }
+        }
+
+        if (!notifications.isEmpty()) {
+            notificationService.createNotificationsInBatch(notifications);
+        }
+    }
+
+    private void requeue(List<Reminder> batch) {
+        long retryAt = System.currentTimeMillis() + Duration.ofSeconds(retryDelaySeconds).toMillis();
+        for (Reminder reminder : batch) {
+            // A registration rescheduled or cancelled meanwhile keeps its newer state
+            if (pending.putIfAbsent(reminder.key, reminder) == null) {
+                wheel.schedule(reminder.key, retryAt);
+            }
+        }
+    }
+
+    private int scheduleRecovered(Kind kind, ReminderTarget target, LocalDateTime now,
+                                  Map<String, LocalDateTime> alreadySent) {
+        int scheduled = scheduleAll(kind, target, now);
+
+        // A reminder whose deadline passed while the application was down is sent once, unless it already went out
+        LocalDateTime missedDeadline = leadMinutes.stream()
+                .map(target.getStartsAt()::minusMinutes)
+                .filter(deadline -> !deadline.isAfter(now))
+                .max(LocalDateTime::compareTo)
+                .orElse(null);
+        if (missedDeadline != null) {
+            LocalDateTime lastSent = alreadySent.get(sentKey(kind, target.getUserId(), target.getTargetId()));
+            if (lastSent == null || lastSent.isBefore(missedDeadline)) {
+                String key = key(kind, target.getRegistrationId(), 0L);
+                pending.put(key, new Reminder(key, kind, target.getRegistrationId(), target.getStartsAt()));
+                wheel.schedule(key, System.currentTimeMillis());
+                scheduled++;
+            }
+        }
+        return scheduled;
+    }
+
+    private int scheduleAll(Kind kind, ReminderTarget target, LocalDateTime now) {
+        cancelAll(kind, target.getRegistrationId());
+        int scheduled = 0;
+        for (Long lead : leadMinutes) {
+            LocalDateTime deadline = target.getStartsAt().minusMinutes(lead);
+            if (!deadline.isAfter(now)) {
+                continue;
+            }
+            String key = key(kind, target.getRegistrationId(), lead);
+            pending.put(key, new Reminder(key, kind, target.getRegistrationId(), target.getStartsAt()));
+            wheel.schedule(key, deadline.atZone(zone).toInstant().toEpochMilli());
+            scheduled++;
+        }
+        return scheduled;
+    }
+
+    private void cancelAll(Kind kind, UUID registrationId) {
+        String catchUpKey = key(kind, registrationId, 0L);
+        wheel.cancel(catchUpKey);
+        pending.remove(catchUpKey);
+        for (Long lead : leadMinutes) {
+            String key = key(kind, registrationId, lead);
+            wheel.cancel(key);
+            pending.remove(key);
+        }
+    }
+
+    private Map<String, LocalDateTime> loadSentReminders(LocalDateTime since) {
+        Map<String, LocalDateTime> sent = new HashMap<>();
+        for (Kind kind : Kind.values()) {
+            for (Object[] row : notificationRepository.findLatestByTypeSince(typeOf(kind), since)) {
+                sent.put(sentKey(kind, (UUID) row[0], (UUID) row[1]), (LocalDateTime) row[2]);
+            }
+        }
+        return sent;
+    }
+
+    private String buildMessage(Kind kind, ReminderTarget target) {
+        String what = kind == Kind.EVENT ? "Reminder: \"%s\" starts on %s." : "Reminder: your volunteer shift \"%s\" starts on %s.";
+        return String.format(what, target.getTitle(), target.getStartsAt().format(START_FORMAT));
+    }
+
+    private static String typeOf(Kind kind) {
+        return kind == Kind.EVENT ? EVENT_REMINDER_TYPE : VOLUNTEER_REMINDER_TYPE;
+    }
+
+    private static String key(Kind kind, UUID registrationId, Long lead) {
+        return kind + ":" + registrationId + ":" + lead;
+    }
+
+    private static String sentKey(Kind kind, UUID userId, UUID targetId) {
+        return kind + ":" + userId + ":" + targetId;
+    }
+
+    private static final class Reminder {
+        private final String key;
+        private final Kind kind;
+        private final UUID registrationId;
+        private final LocalDateTime startsAt;
+
+        private Reminder(String key, Kind kind, UUID registrationId, LocalDateTime startsAt) {
+            this.key = key;
+            this.kind = kind;
+            this.registrationId = registrationId;
+            this.startsAt = startsAt;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.community.management.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+/**
+ * Cold tier in an S3-compatible bucket, configured with the same {@code file.s3.*} settings as S3 storage.
+ * On AWS, a storage class such as STANDARD_IA makes the rarely read copies cheaper to keep.
+ */
+@Service
+@ConditionalOnProperty(name = "file.cold-tier.type", havingValue = "s3")
+public class S3ColdStorageTier implements ColdStorageTier {
+
+    private static final String LAST_MODIFIED_METADATA = "last-modified-millis";
+
+    @Autowired
+    private S3Client s3Client;
+
+    private final String bucket;
+    private final String keyPrefix;
+    private final String storageClass;
+
+    public S3ColdStorageTier(@Value("${file.s3.bucket}") String bucket,
+                             @Value("${file.cold-tier.s3-key-prefix:cold/}") String keyPrefix,
+                             @Value("${file.cold-tier.s3-storage-class:}") String storageClass) {
+        this.bucket = bucket;
+        this.keyPrefix = keyPrefix;
+        this.storageClass = storageClass;
+    }
+
+    @Override
+    public void store(String fileName, Path source) throws IOException {
+        String lastModified = String.valueOf(Files.getLastModifiedTime(source).toMillis());
+        PutObjectRequest.Builder request = PutObjectRequest.builder().bucket(bucket).key(keyPrefix + fileName)
+                .metadata(Map.of(LAST_MODIFIED_METADATA, lastModified));
+        if (StringUtils.hasText(storageClass)) {
+            request.storageClass(storageClass);
+        }
+        try {
+            s3Client.putObject(request.build(), RequestBody.fromFile(source));
+        } catch (SdkException ex) {
+            throw new IOException("Could not copy " + fileName + " to the cold tier", ex);
+        }
+    }
+
+    @Override
+    public boolean retrieve(String fileName, Path target) throws IOException {
+        try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(b -> b.bucket(bucket).key(keyPrefix + fileName))) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            String lastModified = in.response().metadata().get(LAST_MODIFIED_METADATA);
+            if (lastModified != null) {
+                Files.setLastModifiedTime(target, FileTime.fromMillis(Long.parseLong(lastModified)));
+            }
+            return true;
+        } catch (NoSuchKeyException ex) {
+            return false;
+        } catch (SdkException ex) {
+            throw new IOException("Could not read " + fileName + " from the cold tier", ex);
+        }
+    }
+
+    @Override
+    public void delete(String fileName) throws IOException {
+        try {
+            s3Client.deleteObject(b -> b.bucket(bucket).key(keyPrefix + fileName));
+        } catch (SdkException ex) {
+            throw new IOException("Could not delete " + fileName + " from the cold tier", ex);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.community.management.service;
+
+import com.community.management.exception.FileStorageException;
+import com.community.management.exception.ResourceNotFoundException;
+import com.community.management.util.TransactionCallbacks;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Stores uploads in an S3-compatible bucket so that application nodes do not need a shared disk.
+ * Large uploads are streamed from the request as a multipart upload; at most {@code max-parallel-parts}
+ * part buffers are in memory per upload, however large the file is.
+ */
+@Service("s3FileStorageService")
+@ConditionalOnProperty(name = "file.storage", havingValue = "s3")
+public class S3FileStorageService implements FileStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3FileStorageService.class);
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024; // S3 rejects smaller non-final parts
+
+    @Autowired
+    private S3Client s3Client;
+
+    // Lazy: both variant services read originals through this storage service
+    @Lazy
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Lazy
+    @Autowired
+    private CompressedVariantService compressedVariantService;
+
+    private final String bucket;
+    private final String keyPrefix;
+    private final int partSize;
+    private final int maxParallelParts;
+    private final ExecutorService partUploadExecutor;
+
+    public S3FileStorageService(@Value("${file.s3.bucket}") String bucket,
+                                @Value("${file.s3.key-prefix:uploads/}") String keyPrefix,
+                                @Value("${file.s3.part-size-mb:8}") int partSizeMb,
+                                @Value("${file.s3.max-parallel-parts:4}") int maxParallelParts,
+                                @Value("${file.s3.upload-threads:8}") int uploadThreads) {
+        this.bucket = bucket;
+        this.keyPrefix = keyPrefix;
+        this.partSize = (int) Math.max(MIN_PART_SIZE, partSizeMb * 1024L * 1024L);
+        this.maxParallelParts = maxParallelParts;
+        this.partUploadExecutor = Executors.newFixedThreadPool(uploadThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partUploadExecutor.shutdown();
+    }
+
+    @Override
+    public String storeFile(MultipartFile file) {
+        String fileExtension = FileStorageService.validatedExtension(file);
+        return upload(file, file.getSize(), file.getContentType(), fileExtension, file.getOriginalFilename());
+    }
+
+    @Override
+    public String storeFile(Path source, String fileExtension, String contentType) {
+        try {
+            return upload(new FileSystemResource(source), Files.size(source), contentType, fileExtension,
+                    source.getFileName().toString());
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not store file " + source.getFileName() + ". Please try again!", ex);
+        } finally {
+            try {
+                Files.deleteIfExists(source);
+            } catch (IOException ex) {
+                logger.warn("Could not remove staged file {}: {}", source, ex.getMessage());
+            }
+        }
+    }
+
+    private String upload(InputStreamSource source, long size, String contentType, String fileExtension,
+                          String displayName) {
+        String newFileName = UUID.randomUUID().toString() + fileExtension;
+        String key = keyPrefix + newFileName;
+
+        try {
+            if (size <= partSize) {
+                try (InputStream in = source.getInputStream()) {
+                    s3Client.putObject(b -> b.bucket(bucket).key(key).contentType(contentType),
+                            RequestBody.fromInputStream(in, size));
+                }
+            } else {
+                multipartUpload(source, contentType, key);
+            }
+            return newFileName;
+        } catch (IOException | SdkException ex) {
+            throw new FileStorageException("Could not store file " + displayName + ". Please try again!", ex);
+        }
+    }
+
+    private void multipartUpload(InputStreamSource source, String contentType, String key) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(b -> b.bucket(bucket).key(key)
+                .contentType(contentType)).uploadId();
+        Semaphore inFlight = new Semaphore(maxParallelParts);
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+
+        try (InputStream in = source.getInputStream()) {
+            int partNumber = 1;
+            while (true) {
+                // Block before reading the next part so no more than maxParallelParts buffers exist at once
+                inFlight.acquire();
+                byte[] buffer = new byte[partSize];
+                int length = in.readNBytes(buffer, 0, partSize);
+                if (length == 0 && partNumber > 1) {
+                    inFlight.release();
+                    break;
+                }
+                int currentPart = partNumber++;
+                parts.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        String eTag = s3Client.uploadPart(b -> b.bucket(bucket).key(key).uploadId(uploadId)
+                                        .partNumber(currentPart).contentLength((long) length),
+                                RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length))
+                                .eTag();
+                        return CompletedPart.builder().partNumber(currentPart).eTag(eTag).build();
+                    } finally {
+                        inFlight.release();
+                    }
+                }, partUploadExecutor));
+                if (length < partSize || parts.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    break;
+                }
+            }
+
+            List<CompletedPart> completed = new ArrayList<>(parts.size());
+            for (CompletableFuture<CompletedPart> part : parts) {
+                completed.add(part.join());
+            }
+            s3Client.completeMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(m -> m.parts(completed)));
+        } catch (IOException | RuntimeException ex) {
+            abortQuietly(key, uploadId);
+            if (ex instanceof CompletionException && ex.getCause() instanceof SdkException sdkException) {
+                throw sdkException;
+            }
+            throw ex;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            abortQuietly(key, uploadId);
+            throw new FileStorageException("Upload of " + key + " was interrupted.", ex);
+        }
+    }
+
+    private void abortQuietly(String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId));
+        } catch (SdkException e) {
+            logger.warn("Could not abort multipart upload {}: {}", uploadId, e.getMessage());
+        }
+    }
+
+    @Override
+    public Resource loadFileAsResource(String fileName) {
+        String key = keyPrefix + fileName;
+        try {
+            HeadObjectResponse head = s3Client.headObject(b -> b.bucket(bucket).key(key));
+            return new S3ObjectResource(fileName, key, head);
+        } catch (NoSuchKeyException ex) {
+            throw new ResourceNotFoundException("File not found " + fileName, ex);
+        } catch (S3Exception ex) {
+            if (ex.statusCode() == 404) {
+                throw new ResourceNotFoundException("File not found " + fileName, ex);
+            }
+            throw new FileStorageException("Could not read file " + fileName, ex);
+        }
+    }
+
+    @Override
+    public void deleteFile(String fileName) {
+        try {
+            s3Client.deleteObject(b -> b.bucket(bucket).key(keyPrefix + fileName));
+            // Variants are generated into the local variant directory whichever storage holds the original
+            TransactionCallbacks.afterCommit(() -> {
+                imageVariantService.deleteVariants(fileName);
+                compressedVariantService.deleteVariant(fileName);
+            });
+        } catch (SdkException ex) {
+            throw new FileStorageException("Could not delete file " + fileName, ex);
+        }
+    }
+
+    private class S3ObjectResource extends AbstractResource implements RangeReadableResource {
+
+        private final String fileName;
+        private final String key;
+        private final HeadObjectResponse head;
+
+        private S3ObjectResource(String fileName, String key, HeadObjectResponse head) {
+            this.fileName = fileName;
+            this.key = key;
+            this.head = head;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return s3Client.getObject(b -> b.bucket(bucket).key(key));
+        }
+
+        @Override
+        public InputStream getInputStream(long start, long endInclusive) {
+            return s3Client.getObject(b -> b.bucket(bucket).key(key).range("bytes=" + start + "-" + endInclusive));
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return head.contentLength();
+        }
+
+        @Override
+        public long lastModified() {
+            return head.lastModified().toEpochMilli();
+        }
+
+        @Override
+        public String getFilename() {
+            return fileName;
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object [s3://" + bucket + "/" + key + "]";
+        }
+    }
+}
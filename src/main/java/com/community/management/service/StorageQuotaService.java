@@ -0,0 +1,192 @@
+package com.community.management.service;
+
+import com.community.management.entity.StorageUsage;
+import com.community.management.entity.User;
+import com.community.management.exception.ResourceNotFoundException;
+import com.community.management.exception.StorageQuotaExceededException;
+import com.community.management.repository.DocumentRepository;
+import com.community.management.repository.StorageUsageRepository;
+import com.community.management.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Maintains the per-user storage ledger and enforces the upload quota.
+ * Every change runs in the caller's transaction with the user's ledger row locked, so the quota check and
+ * the new total are decided together and roll back with the upload if storing the file fails. Usage is
+ * counted per upload: a file shared through content addressing counts once for each user who uploaded it.
+ */
+@Service
+public class StorageQuotaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageQuotaService.class);
+
+    @Autowired
+    private StorageUsageRepository storageUsageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final long quotaBytes;
+
+    public StorageQuotaService(@Value("${app.storage.quota-mb:500}") long quotaMb) {
+        this.quotaBytes = quotaMb * 1024 * 1024; // 0 disables the quota
+    }
+
+    /**
+     * Fails early, without locking, when a document of this size would not fit. Used when a chunked upload
+     * starts, so the client does not send gigabytes that would be refused at the end.
+     */
+    @Transactional(readOnly = true)
+    public void checkDocumentFits(UUID userId, long bytes) {
+        long used = storageUsageRepository.findById(userId).map(StorageUsage::getUsedBytes).orElse(0L);
+        requireFits(used, bytes);
+    }
+
+    /**
+     * Charges a new document to the user. Call before the file is stored.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserveDocument(UUID userId, long bytes) {
+        StorageUsage usage = lockedUsage(userId);
+        requireFits(usage.getUsedBytes(), bytes);
+        usage.setDocumentBytes(usage.getDocumentBytes() + bytes);
+        usage.setDocumentCount(usage.getDocumentCount() + 1);
+        usage.setUpdatedAt(LocalDateTime.now());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseDocument(UUID userId, Long bytes) {
+        StorageUsage usage = lockedUsage(userId);
+        usage.setDocumentBytes(Math.max(0, usage.getDocumentBytes() - (bytes != null ? bytes : 0)));
+        usage.setDocumentCount(Math.max(0, usage.getDocumentCount() - 1));
+        usage.setUpdatedAt(LocalDateTime.now());
+    }
+
+    /**
+     * Replaces the user's avatar size. Only the difference to the previous avatar counts against the quota.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserveAvatar(UUID userId, long bytes) {
+        StorageUsage usage = lockedUsage(userId);
+        requireFits(usage.getDocumentBytes(), bytes);
+        usage.setAvatarBytes(bytes);
+        usage.setUpdatedAt(LocalDateTime.now());
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getUsageReport(int limit) {
+        Object[] totals = storageUsageRepository.sumUsage().get(0);
+        long documentBytes = ((Number) totals[0]).longValue();
+        long avatarBytes = ((Number) totals[1]).longValue();
+
+        List<Map<String, Object>> topUsers = new ArrayList<>();
+        for (StorageUsage usage : storageUsageRepository.findTopConsumers(PageRequest.of(0, limit))) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("userId", usage.getUserId());
+            entry.put("email", usage.getUser().getEmail());
+            entry.put("usedBytes", usage.getUsedBytes());
+            entry.put("documentBytes", usage.getDocumentBytes());
+            entry.put("documentCount", usage.getDocumentCount());
+            entry.put("avatarBytes", usage.getAvatarBytes());
+            topUsers.add(entry);
+        }
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("totalBytes", documentBytes + avatarBytes);
+        report.put("documentBytes", documentBytes);
+        report.put("avatarBytes", avatarBytes);
+        report.put("documentCount", ((Number) totals[2]).longValue());
+        report.put("usersWithUsage", ((Number) totals[3]).longValue());
+        report.put("quotaBytesPerUser", quotaBytes);
+        report.put("topUsers", topUsers);
+        return report;
+    }
+
+    /**
+     * Creates ledger rows for users that predate the ledger, so the admin report covers everyone without
+     * waiting for each user's next upload.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingUsage() {
+        Thread backfill = new Thread(() -> {
+            int created = 0;
+            for (UUID userId : storageUsageRepository.findUserIdsWithoutUsage()) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> lockedUsage(userId));
+                    created++;
+                } catch (RuntimeException ex) {
+                    logger.warn("Could not initialise storage usage of user {}: {}", userId, ex.getMessage());
+                }
+            }
+            logger.info("Storage usage backfill finished, {} users initialised", created);
+        }, "storage-usage-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    private void requireFits(long usedBytes, long additionalBytes) {
+        if (quotaBytes > 0 && usedBytes + additionalBytes > quotaBytes) {
+            throw new StorageQuotaExceededException("Storage quota of " + (quotaBytes / (1024 * 1024))
+                    + " MB exceeded: " + (usedBytes / (1024 * 1024)) + " MB in use.");
+        }
+    }
+
+    private StorageUsage lockedUsage(UUID userId) {
+        return storageUsageRepository.findByUserIdForUpdate(userId).orElseGet(() -> createUsage(userId));
+    }
+
+    // The user row lock serialises the first upload of a user against the backfill, so the row is created once
+    private StorageUsage createUsage(UUID userId) {
+        User user = userRepository.findByIdForUpdate(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+        return storageUsageRepository.findByUserIdForUpdate(userId).orElseGet(() -> {
+            StorageUsage usage = new StorageUsage();
+            usage.setUser(user);
+            usage.setDocumentBytes(documentRepository.sumFileSizeByUploader(userId));
+            usage.setDocumentCount((int) documentRepository.countByUploadedById(userId));
+            usage.setAvatarBytes(avatarSize(user));
+            usage.setUpdatedAt(LocalDateTime.now());
+            return storageUsageRepository.save(usage);
+        });
+    }
+
+    // Only read once per user, when the ledger row is created; from then on the ledger tracks avatar changes
+    private long avatarSize(User user) {
+        if (user.getAvatarUrl() == null) {
+            return 0;
+        }
+        try {
+            String fileName = user.getAvatarUrl().substring(user.getAvatarUrl().lastIndexOf('/') + 1);
+            return fileStorageService.loadFileAsResource(fileName).contentLength();
+        } catch (Exception ex) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.community.management.service;
+
+import com.community.management.repository.DocumentRepository;
+import com.community.management.repository.EventRepository;
+import com.community.management.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills the indexed stored file name columns of documents, avatars and event images for rows written
+ * before those columns existed. New and updated rows derive the name when they are saved, so after one
+ * pass at startup every file lookup by name is an index lookup. Event image URLs that were stored as a
+ * signed link sent back by a client lose their query first, so their file name is the stored name.
+ */
+@Service
+public class StoredFileNameBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoredFileNameBackfill.class);
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Thread backfill = new Thread(() -> {
+            try {
+                Integer documents = transactionTemplate.execute(status -> documentRepository.backfillStoredFileNames());
+                Integer avatars = transactionTemplate.execute(status -> userRepository.backfillAvatarFileNames());
+                Integer signed = transactionTemplate.execute(status -> eventRepository.stripSignedImageUrls());
+                if (signed != null && signed > 0) {
+                    logger.info("Removed the signature from {} stored event image URLs", signed);
+                }
+                Integer images = transactionTemplate.execute(status -> eventRepository.backfillImageFileNames());
+                if (documents != null && avatars != null && images != null && documents + avatars + images > 0) {
+                    logger.info("Stored file name backfill finished: {} documents, {} avatars, {} event images",
+                            documents, avatars, images);
+                }
+            } catch (RuntimeException ex) {
+                logger.error("Could not backfill stored file names", ex);
+            }
+        }, "stored-file-name-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+}
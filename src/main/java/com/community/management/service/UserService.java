@@ -7,8 +7,8 @@ import com.community.management.entity.User;
 import com.community.management.entity.UserRole;
 import com.community.management.exception.ResourceNotFoundException;
 import com.community.management.repository.UserRepository;
+import com.community.management.security.FileUrlSigner;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
@@ -28,9 +28,35 @@ public class UserService {
     private UserRepository userRepository;
 
     @Autowired
-    @Qualifier("localFileStorageService")
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Autowired
+    private FileUrlSigner fileUrlSigner;
+
+    @Autowired
+    private MemberNameIndex memberNameIndex;
+
+    @Autowired
+    private DirectoryAutocompleteService directoryAutocompleteService;
+
+    @Autowired
+    private DirectoryTagIndex directoryTagIndex;
+
+    @Autowired
+    private LocationRollupService locationRollupService;
+
+    @Autowired
+    private DirectorySnapshotCache directorySnapshotCache;
+
+    @Autowired
+    private MemberSuggestionService memberSuggestionService;
+
     @Cacheable(value = "userProfiles", key = "#userId")
     @Transactional(readOnly = true)
     public UserProfileResponse getUserProfile(UUID userId) {
@@ -46,6 +72,8 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
+        locationRollupService.memberMovedAsync(user.getState(), user.getDistrict(), user.getCity(), user.getCommunityName(),
+                request.getState(), request.getDistrict(), request.getCity(), request.getCommunityName());
         user.setFullName(request.getFullName());
         user.setCity(request.getCity());
         user.setState(request.getState());
@@ -54,6 +82,13 @@ public class UserService {
         user.setPhone(request.getPhone());
 
         User updatedUser = userRepository.save(user);
+        directorySnapshotCache.bumpVersion(); // Directory entries show the full name
+        memberNameIndex.updateFullNameAsync(userId, updatedUser.getFullName());
+        directoryAutocompleteService.updateLocationAsync(userId, updatedUser.getCity(), updatedUser.getDistrict(),
+                updatedUser.getCommunityName());
+        directoryTagIndex.updateLocationAsync(userId, updatedUser.getState(), updatedUser.getDistrict(),
+                updatedUser.getCity(), updatedUser.getCommunityName());
+        memberSuggestionService.updateCommunityAsync(userId, updatedUser.getDistrict(), updatedUser.getCommunityName());
 
         return mapUserToProfileResponse(updatedUser);
     }
@@ -64,6 +99,11 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
+        // Store the new avatar before releasing the old one, so re-uploading the same image keeps its shared blob
+        storageQuotaService.reserveAvatar(userId, file.getSize());
+        String fileName = fileStorageService.storeFile(file);
+        imageVariantService.generateVariantsAsync(fileName);
+
         if (user.getAvatarUrl() != null) {
             try {
                 String oldFileName = user.getAvatarUrl().substring(user.getAvatarUrl().lastIndexOf('/') + 1);
@@ -73,8 +113,6 @@ public class UserService {
             }
         }
 
-        String fileName = fileStorageService.storeFile(file);
-
         String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
                 .path("/api/files/")
                 .path(fileName)
@@ -83,7 +121,7 @@ public class UserService {
         user.setAvatarUrl(fileDownloadUri);
         userRepository.save(user);
 
-        return fileDownloadUri;
+        return fileUrlSigner.sign(fileDownloadUri);
     }
 
     // Admin specific methods
@@ -114,10 +152,16 @@ public class UserService {
     @CacheEvict(value = "userProfiles", key = "#userId") // Evict from cache when user is deleted
     @Transactional
     public void deleteUser(UUID userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new ResourceNotFoundException("User", "id", userId);
-        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
         userRepository.deleteById(userId);
+        directorySnapshotCache.bumpVersion();
+        locationRollupService.memberRemovedAsync(user.getState(), user.getDistrict(), user.getCity(),
+                user.getCommunityName());
+        memberNameIndex.removeAsync(userId);
+        directoryAutocompleteService.removeAsync(userId);
+        directoryTagIndex.removeAsync(userId);
+        memberSuggestionService.removeMemberAsync(userId);
     }
 
     @Transactional(readOnly = true)
@@ -145,7 +189,7 @@ public class UserService {
                 .district(user.getDistrict())
                 .communityName(user.getCommunityName())
                 .phone(user.getPhone())
-                .avatarUrl(user.getAvatarUrl())
+                .avatarUrl(fileUrlSigner.sign(user.getAvatarUrl()))
                 .role(user.getRole())
                 .createdAt(user.getCreatedAt())
                 .build();
@@ -162,7 +206,7 @@ public class UserService {
                 .district(user.getDistrict())
                 .communityName(user.getCommunityName())
                 .phone(user.getPhone())
-                .avatarUrl(user.getAvatarUrl())
+                .avatarUrl(fileUrlSigner.sign(user.getAvatarUrl()))
                 .isActive(user.getIsActive())
                 .lastLogin(user.getLastLogin())
                 .createdAt(user.getCreatedAt())
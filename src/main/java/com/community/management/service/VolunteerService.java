@@ -5,8 +5,10 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.community.management.dto.request.CreateVolunteerOpportunityRequest;
@@ -14,10 +16,12 @@ import com.community.management.dto.request.UpdateVolunteerOpportunityRequest;
 import com.community.management.dto.request.UpdateVolunteerRegistrationRequest;
 import com.community.management.dto.response.VolunteerOpportunityResponse;
 import com.community.management.dto.response.VolunteerRegistrationResponse;
+import com.community.management.entity.RegistrationStatus;
 import com.community.management.entity.User;
 import com.community.management.entity.VolunteerOpportunity;
 import com.community.management.entity.VolunteerRegistration;
 import com.community.management.entity.VolunteerStatus;
+import com.community.management.exception.ConcurrencyConflictException;
 import com.community.management.exception.ResourceNotFoundException;
 import com.community.management.exception.ValidationException;
 import com.community.management.repository.UserRepository;
@@ -37,6 +41,15 @@ public class VolunteerService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private VolunteerSlotAllocator slotAllocator;
+
+    @Autowired
+    private ReminderService reminderService;
+
+    @Autowired
+    private MemberSuggestionService memberSuggestionService;
+
     @Transactional
     public VolunteerOpportunityResponse createOpportunity(CreateVolunteerOpportunityRequest request,
             UserPrincipal currentUser) {
@@ -83,8 +96,20 @@ public class VolunteerService {
         }
 
         mapRequestToOpportunity(request, opportunity);
+        if (request.getStatus() == null) {
+            reconcileCapacityStatus(opportunity);
+        }
 
-        VolunteerOpportunity updatedOpportunity = opportunityRepository.save(opportunity);
+        VolunteerOpportunity updatedOpportunity;
+        try {
+            // Flushed here so a registration that moved the version meanwhile surfaces as a conflict, not a 500
+            updatedOpportunity = opportunityRepository.saveAndFlush(opportunity);
+        } catch (ObjectOptimisticLockingFailureException ex) {
+            throw new ConcurrencyConflictException("Opportunity changed while it was being edited, please try again.", ex);
+        }
+        if (request.getDateTime() != null) {
+            reminderService.rescheduleOpportunity(opportunityId);
+        }
         return mapOpportunityToResponse(updatedOpportunity);
     }
 
@@ -99,47 +124,43 @@ public class VolunteerService {
             throw new ResourceNotFoundException("VolunteerOpportunity", "id", opportunityId);
         }
         opportunityRepository.deleteById(opportunityId);
+        memberSuggestionService.removeActivityAsync(MemberSuggestionService.ActivityKind.VOLUNTEER, opportunityId);
     }
 
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public VolunteerRegistrationResponse registerForOpportunity(UUID opportunityId, UserPrincipal currentUser) {
-        User user = userRepository.findById(currentUser.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", currentUser.getId()));
-        VolunteerOpportunity opportunity = opportunityRepository.findById(opportunityId)
-                .orElseThrow(() -> new ResourceNotFoundException("VolunteerOpportunity", "id", opportunityId));
+        if (!userRepository.existsById(currentUser.getId())) {
+            throw new ResourceNotFoundException("User", "id", currentUser.getId());
+        }
 
         if (registrationRepository.findByOpportunityIdAndUserId(opportunityId, currentUser.getId()).isPresent()) {
             throw new ValidationException("User already registered for this opportunity.");
         }
 
-        if (opportunity.getMaxVolunteers() != null
-                && opportunity.getCurrentVolunteers() >= opportunity.getMaxVolunteers()) {
-            throw new ValidationException("Opportunity is full.");
-        }
-
-        opportunity.setCurrentVolunteers(opportunity.getCurrentVolunteers() + 1);
-        opportunityRepository.save(opportunity);
+        // Claims the slot first; the bulk update clears the persistence context, so entities are loaded after it
+        slotAllocator.allocate(opportunityId);
 
         VolunteerRegistration registration = new VolunteerRegistration();
-        registration.setOpportunity(opportunity);
-        registration.setUser(user);
+        registration.setOpportunity(opportunityRepository.getReferenceById(opportunityId));
+        registration.setUser(userRepository.getReferenceById(currentUser.getId()));
 
         VolunteerRegistration savedRegistration = registrationRepository.save(registration);
+        reminderService.scheduleVolunteerRegistration(savedRegistration.getId());
+        memberSuggestionService.joinAsync(currentUser.getId(), MemberSuggestionService.ActivityKind.VOLUNTEER, opportunityId);
         return mapRegistrationToResponse(savedRegistration);
     }
 
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void unregisterFromOpportunity(UUID opportunityId, UserPrincipal currentUser) {
         VolunteerRegistration registration = registrationRepository
                 .findByOpportunityIdAndUserId(opportunityId, currentUser.getId())
                 .orElseThrow(
                         () -> new ResourceNotFoundException("Registration not found for this opportunity and user."));
 
-        VolunteerOpportunity opportunity = registration.getOpportunity();
-        opportunity.setCurrentVolunteers(opportunity.getCurrentVolunteers() - 1);
-        opportunityRepository.save(opportunity);
-
         registrationRepository.delete(registration);
+        slotAllocator.release(opportunityId);
+        reminderService.cancelVolunteerRegistration(registration.getId());
+        memberSuggestionService.leaveAsync(currentUser.getId(), MemberSuggestionService.ActivityKind.VOLUNTEER, opportunityId);
     }
 
     @Transactional(readOnly = true)
@@ -174,6 +195,13 @@ public class VolunteerService {
             registration.setNotes(request.getNotes());
 
         VolunteerRegistration updatedRegistration = registrationRepository.save(registration);
+        UUID userId = updatedRegistration.getUser().getId();
+        UUID opportunityId = updatedRegistration.getOpportunity().getId();
+        if (updatedRegistration.getStatus() == RegistrationStatus.CANCELLED) {
+            memberSuggestionService.leaveAsync(userId, MemberSuggestionService.ActivityKind.VOLUNTEER, opportunityId);
+        } else {
+            memberSuggestionService.joinAsync(userId, MemberSuggestionService.ActivityKind.VOLUNTEER, opportunityId);
+        }
         return mapRegistrationToResponse(updatedRegistration);
     }
 
@@ -219,6 +247,16 @@ public class VolunteerService {
                 .build();
     }
 
+    private void reconcileCapacityStatus(VolunteerOpportunity opportunity) {
+        Integer max = opportunity.getMaxVolunteers();
+        boolean atCapacity = max != null && opportunity.getCurrentVolunteers() >= max;
+        if (atCapacity && opportunity.getStatus() == VolunteerStatus.ACTIVE) {
+            opportunity.setStatus(VolunteerStatus.FILLED);
+        } else if (!atCapacity && opportunity.getStatus() == VolunteerStatus.FILLED) {
+            opportunity.setStatus(VolunteerStatus.ACTIVE);
+        }
+    }
+
     private void mapRequestToOpportunity(CreateVolunteerOpportunityRequest request, VolunteerOpportunity opportunity) {
         opportunity.setTitle(request.getTitle());
         opportunity.setDescription(request.getDescription());
@@ -0,0 +1,108 @@
+package com.community.management.service;
+
+import com.community.management.entity.VolunteerStatus;
+import com.community.management.exception.ConcurrencyConflictException;
+import com.community.management.exception.ResourceNotFoundException;
+import com.community.management.exception.ValidationException;
+import com.community.management.repository.VolunteerOpportunityRepository;
+import com.community.management.repository.VolunteerOpportunityRepository.SlotState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Claims and releases volunteer slots with a compare-and-set on the opportunity version,
+ * so concurrent registrations can never push currentVolunteers past maxVolunteers.
+ * Callers must run in a READ_COMMITTED transaction so each retry re-reads the latest row.
+ */
+@Service
+public class VolunteerSlotAllocator {
+
+    @Autowired
+    private VolunteerOpportunityRepository opportunityRepository;
+
+    @Value("${app.volunteer.slot-allocation.max-attempts:5}")
+    private int maxAttempts;
+
+    private final AtomicLong allocations = new AtomicLong();
+    private final AtomicLong releases = new AtomicLong();
+    private final AtomicLong rejectedFull = new AtomicLong();
+    private final AtomicLong versionConflicts = new AtomicLong();
+    private final AtomicLong exhaustedRetries = new AtomicLong();
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void allocate(UUID opportunityId) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            SlotState state = loadSlotState(opportunityId);
+            int current = state.getCurrentVolunteers() == null ? 0 : state.getCurrentVolunteers();
+            Integer max = state.getMaxVolunteers();
+
+            if (max != null && current >= max) {
+                rejectedFull.incrementAndGet();
+                throw new ValidationException("Opportunity is full.");
+            }
+
+            int next = current + 1;
+            VolunteerStatus nextStatus = state.getStatus();
+            if (max != null && next >= max && nextStatus == VolunteerStatus.ACTIVE) {
+                nextStatus = VolunteerStatus.FILLED;
+            }
+
+            if (opportunityRepository.compareAndSetSlots(opportunityId, state.getVersion(), next, nextStatus,
+                    LocalDateTime.now()) == 1) {
+                allocations.incrementAndGet();
+                return;
+            }
+            versionConflicts.incrementAndGet();
+        }
+        exhaustedRetries.incrementAndGet();
+        throw new ConcurrencyConflictException("Opportunity is busy, please try registering again.");
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(UUID opportunityId) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            SlotState state = loadSlotState(opportunityId);
+            int current = state.getCurrentVolunteers() == null ? 0 : state.getCurrentVolunteers();
+            Integer max = state.getMaxVolunteers();
+
+            int next = Math.max(current - 1, 0);
+            VolunteerStatus nextStatus = state.getStatus();
+            if (nextStatus == VolunteerStatus.FILLED && (max == null || next < max)) {
+                nextStatus = VolunteerStatus.ACTIVE;
+            }
+
+            if (opportunityRepository.compareAndSetSlots(opportunityId, state.getVersion(), next, nextStatus,
+                    LocalDateTime.now()) == 1) {
+                releases.incrementAndGet();
+                return;
+            }
+            versionConflicts.incrementAndGet();
+        }
+        exhaustedRetries.incrementAndGet();
+        throw new ConcurrencyConflictException("Opportunity is busy, please try unregistering again.");
+    }
+
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("allocations", allocations.get());
+        metrics.put("releases", releases.get());
+        metrics.put("rejectedFull", rejectedFull.get());
+        metrics.put("versionConflicts", versionConflicts.get());
+        metrics.put("exhaustedRetries", exhaustedRetries.get());
+        return metrics;
+    }
+
+    private SlotState loadSlotState(UUID opportunityId) {
+        return opportunityRepository.findSlotStateById(opportunityId)
+                .orElseThrow(() -> new ResourceNotFoundException("VolunteerOpportunity", "id", opportunityId));
+    }
+}
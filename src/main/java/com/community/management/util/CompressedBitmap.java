@@ -0,0 +1,354 @@
+package com.community.management.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative ints in the style of Roaring bitmaps. Values are grouped by their high
+ * 16 bits into chunks; a chunk holds a sorted array of its low 16 bits while it has at most 4096 values and
+ * switches to a 65536-bit bitmap above that, so sparse and dense sets both stay small and intersections
+ * work chunk by chunk. Not thread-safe.
+ */
+public class CompressedBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final char[] NO_KEYS = new char[0];
+    private static final Container[] NO_CONTAINERS = new Container[0];
+
+    private char[] keys = NO_KEYS;
+    private Container[] containers = NO_CONTAINERS;
+
+    public void add(int value) {
+        char key = (char) (value >>> 16);
+        int at = Arrays.binarySearch(keys, key);
+        if (at < 0) {
+            at = -at - 1;
+            insertContainer(at, key, new Container());
+        }
+        containers[at].add((char) value);
+    }
+
+    public void remove(int value) {
+        int at = Arrays.binarySearch(keys, (char) (value >>> 16));
+        if (at < 0) {
+            return;
+        }
+        containers[at].remove((char) value);
+        if (containers[at].cardinality == 0) {
+            removeContainer(at);
+        }
+    }
+
+    public boolean contains(int value) {
+        int at = Arrays.binarySearch(keys, (char) (value >>> 16));
+        return at >= 0 && containers[at].contains((char) value);
+    }
+
+    public int cardinality() {
+        int cardinality = 0;
+        for (Container container : containers) {
+            cardinality += container.cardinality;
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container and = containers[i].and(other.containers[j]);
+                if (and.cardinality > 0) {
+                    result.insertContainer(result.keys.length, keys[i], and);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                result.insertContainer(result.keys.length, keys[i], containers[i].copy());
+                i++;
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                result.insertContainer(result.keys.length, other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.insertContainer(result.keys.length, keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Size of the intersection, without building it.
+     */
+    public int andCardinality(CompressedBitmap other) {
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                cardinality += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return cardinality;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap copy = new CompressedBitmap();
+        copy.keys = keys.clone();
+        copy.containers = new Container[containers.length];
+        for (int i = 0; i < containers.length; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        return copy;
+    }
+
+    /**
+     * Visits the values in ascending order.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    private void insertContainer(int at, char key, Container container) {
+        char[] grownKeys = new char[keys.length + 1];
+        Container[] grownContainers = new Container[containers.length + 1];
+        System.arraycopy(keys, 0, grownKeys, 0, at);
+        System.arraycopy(containers, 0, grownContainers, 0, at);
+        grownKeys[at] = key;
+        grownContainers[at] = container;
+        System.arraycopy(keys, at, grownKeys, at + 1, keys.length - at);
+        System.arraycopy(containers, at, grownContainers, at + 1, containers.length - at);
+        keys = grownKeys;
+        containers = grownContainers;
+    }
+
+    private void removeContainer(int at) {
+        char[] shrunkKeys = new char[keys.length - 1];
+        Container[] shrunkContainers = new Container[containers.length - 1];
+        System.arraycopy(keys, 0, shrunkKeys, 0, at);
+        System.arraycopy(containers, 0, shrunkContainers, 0, at);
+        System.arraycopy(keys, at + 1, shrunkKeys, at, keys.length - at - 1);
+        System.arraycopy(containers, at + 1, shrunkContainers, at, containers.length - at - 1);
+        keys = shrunkKeys;
+        containers = shrunkContainers;
+    }
+
+    // The low 16 bits of one chunk: a sorted array while small (values == null means bitmap mode), else 1024 words
+    private static final class Container {
+        private char[] values = new char[4];
+        private long[] words;
+        private int cardinality;
+
+        private void add(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) == 0) {
+                    words[value >>> 6] |= bit;
+                    cardinality++;
+                }
+                return;
+            }
+            int at = Arrays.binarySearch(values, 0, cardinality, value);
+            if (at >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                toBitmap();
+                add(value);
+                return;
+            }
+            at = -at - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, at, values, at + 1, cardinality - at);
+            values[at] = value;
+            cardinality++;
+        }
+
+        private void remove(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) != 0) {
+                    words[value >>> 6] &= ~bit;
+                    cardinality--;
+                    if (cardinality <= ARRAY_LIMIT / 2) { // Hysteresis, so a set near the limit does not flip back and forth
+                        toArray();
+                    }
+                }
+                return;
+            }
+            int at = Arrays.binarySearch(values, 0, cardinality, value);
+            if (at >= 0) {
+                System.arraycopy(values, at + 1, values, at, cardinality - at - 1);
+                cardinality--;
+            }
+        }
+
+        private boolean contains(char value) {
+            if (words != null) {
+                return (words[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        private Container and(Container other) {
+            Container result = new Container();
+            if (words != null && other.words != null) {
+                result.words = new long[1024];
+                for (int i = 0; i < 1024; i++) {
+                    result.words[i] = words[i] & other.words[i];
+                    result.cardinality += Long.bitCount(result.words[i]);
+                }
+                result.values = null;
+                if (result.cardinality <= ARRAY_LIMIT) {
+                    result.toArray();
+                }
+                return result;
+            }
+            Container small = words == null ? this : other;
+            Container large = small == this ? other : this;
+            result.values = new char[Math.max(1, small.cardinality)];
+            for (int i = 0; i < small.cardinality; i++) {
+                if (large.contains(small.values[i])) {
+                    result.values[result.cardinality++] = small.values[i];
+                }
+            }
+            return result;
+        }
+
+        private Container or(Container other) {
+            Container result;
+            if (words != null || other.words != null) {
+                Container bitmap = words != null ? this : other;
+                Container rest = bitmap == this ? other : this;
+                result = bitmap.copy();
+                if (rest.words != null) {
+                    result.cardinality = 0;
+                    for (int i = 0; i < 1024; i++) {
+                        result.words[i] |= rest.words[i];
+                        result.cardinality += Long.bitCount(result.words[i]);
+                    }
+                } else {
+                    for (int i = 0; i < rest.cardinality; i++) {
+                        result.add(rest.values[i]);
+                    }
+                }
+                return result;
+            }
+            result = new Container();
+            result.values = new char[cardinality + other.cardinality];
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < other.cardinality) {
+                char next;
+                if (j == other.cardinality || (i < cardinality && values[i] < other.values[j])) {
+                    next = values[i++];
+                } else if (i == cardinality || values[i] > other.values[j]) {
+                    next = other.values[j++];
+                } else {
+                    next = values[i++];
+                    j++;
+                }
+                result.values[result.cardinality++] = next;
+            }
+            if (result.cardinality > ARRAY_LIMIT) {
+                result.toBitmap();
+            }
+            return result;
+        }
+
+        private int andCardinality(Container other) {
+            if (words != null && other.words != null) {
+                int cardinality = 0;
+                for (int i = 0; i < 1024; i++) {
+                    cardinality += Long.bitCount(words[i] & other.words[i]);
+                }
+                return cardinality;
+            }
+            Container small = words == null ? this : other;
+            Container large = small == this ? other : this;
+            int cardinality = 0;
+            for (int i = 0; i < small.cardinality; i++) {
+                if (large.contains(small.values[i])) {
+                    cardinality++;
+                }
+            }
+            return cardinality;
+        }
+
+        private Container copy() {
+            Container copy = new Container();
+            copy.values = values != null ? values.clone() : null;
+            copy.words = words != null ? words.clone() : null;
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        private void forEach(int high, IntConsumer action) {
+            if (words == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    action.accept(high | values[i]);
+                }
+                return;
+            }
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        private void toBitmap() {
+            words = new long[1024];
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            values = null;
+        }
+
+        private void toArray() {
+            char[] array = new char[Math.max(4, cardinality)];
+            int n = 0;
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    array[n++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            values = array;
+            words = null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.community.management.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel keyed by an arbitrary identifier.
+ * Level {@code i} has {@code wheelSize} slots that are each {@code wheelSize^i} ticks wide. Entries
+ * are cascaded down a level when the wheel reaches their slot, so scheduling, cancelling and
+ * advancing one tick are all O(1) regardless of how many entries are pending.
+ * Deadlines beyond the top level are parked in an overflow set and re-examined on each full turn.
+ */
+public class HierarchicalTimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] spans;
+    private final List<List<Set<K>>> levels = new ArrayList<>();
+    private final Set<K> overflow = new LinkedHashSet<>();
+    private final List<K> dueNow = new ArrayList<>();
+    private final Map<K, Long> deadlines = new HashMap<>();
+    private final Map<K, Set<K>> buckets = new HashMap<>();
+    private long currentTick;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.spans = new long[levelCount + 1];
+        spans[0] = 1;
+        for (int i = 1; i <= levelCount; i++) {
+            spans[i] = Math.multiplyExact(spans[i - 1], wheelSize);
+        }
+        for (int i = 0; i < levelCount; i++) {
+            List<Set<K>> slots = new ArrayList<>(wheelSize);
+            for (int j = 0; j < wheelSize; j++) {
+                slots.add(new LinkedHashSet<>());
+            }
+            levels.add(slots);
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedules {@code key} to expire at {@code deadlineMillis}, replacing any earlier deadline for it.
+     * Deadlines that are already due are returned by the next call to {@link #advanceTo(long)}.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long deadlineTick = -Math.floorDiv(-deadlineMillis, tickMillis);
+        deadlines.put(key, deadlineTick);
+        place(key, deadlineTick);
+    }
+
+    public synchronized boolean cancel(K key) {
+        if (deadlines.remove(key) == null) {
+            return false;
+        }
+        Set<K> bucket = buckets.remove(key);
+        if (bucket != null) {
+            bucket.remove(key);
+        } else {
+            dueNow.remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and returns every key whose deadline has passed.
+     */
+    public synchronized List<K> advanceTo(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<K> expired = new ArrayList<>(dueNow);
+        dueNow.clear();
+
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Set<K> slot = levels.get(0).get(slotIndex(0, currentTick));
+            for (K key : slot) {
+                buckets.remove(key);
+                deadlines.remove(key);
+                expired.add(key);
+            }
+            slot.clear();
+            for (K key : dueNow) {
+                deadlines.remove(key);
+                expired.add(key);
+            }
+            dueNow.clear();
+        }
+        for (K key : expired) {
+            deadlines.remove(key);
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    public synchronized boolean contains(K key) {
+        return deadlines.containsKey(key);
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    private void cascade() {
+        int levelCount = levels.size();
+        if (currentTick % spans[levelCount] == 0 && !overflow.isEmpty()) {
+            List<K> parked = new ArrayList<>(overflow);
+            overflow.clear();
+            parked.forEach(this::replace);
+        }
+        for (int level = levelCount - 1; level >= 1; level--) {
+            if (currentTick % spans[level] != 0) {
+                continue;
+            }
+            Set<K> slot = levels.get(level).get(slotIndex(level, currentTick));
+            if (slot.isEmpty()) {
+                continue;
+            }
+            List<K> moving = new ArrayList<>(slot);
+            slot.clear();
+            moving.forEach(this::replace);
+        }
+    }
+
+    private void replace(K key) {
+        buckets.remove(key);
+        place(key, deadlines.get(key));
+    }
+
+    private void place(K key, long deadlineTick) {
+        long delta = deadlineTick - currentTick;
+        if (delta <= 0) {
+            dueNow.add(key);
+            return;
+        }
+        for (int level = 0; level < levels.size(); level++) {
+            if (delta < spans[level + 1]) {
+                Set<K> slot = levels.get(level).get(slotIndex(level, deadlineTick));
+                slot.add(key);
+                buckets.put(key, slot);
+                return;
+            }
+        }
+        overflow.add(key);
+        buckets.put(key, overflow);
+    }
+
+    private int slotIndex(int level, long tick) {
+        return (int) Math.floorMod(tick / spans[level], (long) wheelSize);
+    }
+}
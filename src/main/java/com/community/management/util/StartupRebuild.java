@@ -0,0 +1,94 @@
+package com.community.management.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bookkeeping for an in-memory index that is filled at startup by streaming rows in the background while
+ * changes keep committing. A member written in full during the rebuild has their row skipped, since it is
+ * older than the index. A partial change, such as a new location, for a member whose row has not been
+ * streamed yet is held back and applied right after that row is loaded.
+ * {@link #defer} and {@link #load} are meant to be called under the index's write lock, so a row and a
+ * change committed at the same time are always applied in a consistent order.
+ */
+public class StartupRebuild {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupRebuild.class);
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final String description;
+
+    private final Set<UUID> changed = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, List<Runnable>> deferred = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public StartupRebuild(PlatformTransactionManager transactionManager, String description) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.description = description;
+    }
+
+    /**
+     * Runs {@code rebuild} on a daemon thread inside one read-only transaction, so it can stream its rows.
+     */
+    public void start(String threadName, Runnable rebuild) {
+        Thread thread = new Thread(() -> {
+            running = true;
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> rebuild.run());
+            } catch (RuntimeException ex) {
+                logger.error("Could not rebuild the {}", description, ex);
+            } finally {
+                running = false;
+                changed.clear();
+                deferred.clear();
+            }
+        }, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Records that a member was written or removed in full, so the rebuild leaves their row alone and drops
+     * the partial changes held back for them.
+     */
+    public void markChanged(UUID userId) {
+        if (running) {
+            changed.add(userId);
+            deferred.remove(userId);
+        }
+    }
+
+    /**
+     * Holds back a partial change for a member the index does not have yet, until the rebuild loads them.
+     * Outside a rebuild the member has no public entry, so the change is dropped.
+     */
+    public void defer(UUID userId, Runnable change) {
+        if (running) {
+            deferred.computeIfAbsent(userId, id -> new ArrayList<>()).add(change);
+        }
+    }
+
+    /**
+     * Loads one streamed row, unless the member changed since, and then applies the changes held back for them.
+     */
+    public void load(UUID userId, Runnable put) {
+        if (changed.contains(userId)) {
+            return;
+        }
+        put.run();
+        List<Runnable> changes = deferred.remove(userId);
+        if (changes != null) {
+            changes.forEach(Runnable::run);
+        }
+    }
+}
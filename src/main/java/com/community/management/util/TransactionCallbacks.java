@@ -0,0 +1,85 @@
+package com.community.management.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Runs in-memory side effects of a database change, such as index updates and queued background work,
+ * only once the surrounding transaction has committed, so a rolled-back change never leaks into them.
+ * Outside a transaction the action runs straight away.
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Same as {@link #afterCommit(Runnable)}, holding the read side of {@code commitGate} from just before the
+     * commit until the transaction completes. Whoever holds the write side therefore knows that no such
+     * commit is in flight: each one has either finished, action included, or not reached the database yet.
+     */
+    public static void afterCommit(Runnable action, ReadWriteLock commitGate) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean gateHeld;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitGate.readLock().lock();
+                gateHeld = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (gateHeld) {
+                    commitGate.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs the action just before the transaction commits and again once it has, for markers that readers
+     * must see move on both sides of the commit.
+     */
+    public static void beforeAndAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    action.run();
+                }
+
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
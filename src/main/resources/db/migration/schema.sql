@@ -11,10 +11,16 @@ CREATE TABLE users (
     community_name VARCHAR(255),
     phone VARCHAR(255),
     avatar_url VARCHAR(255),
+    avatar_file_name VARCHAR(255),
     is_active BOOLEAN NOT NULL DEFAULT TRUE,
     last_login DATETIME,
     created_at DATETIME NOT NULL,
-    updated_at DATETIME NOT NULL
+    updated_at DATETIME NOT NULL,
+    INDEX idx_users_district_city (district, city),
+    INDEX idx_users_state (state),
+    INDEX idx_users_city (city),
+    INDEX idx_users_community_name (community_name),
+    INDEX idx_users_avatar_file_name (avatar_file_name)
 );
 
 -- AUDIT LOGS
@@ -45,7 +51,8 @@ CREATE TABLE directory (
     is_public BOOLEAN DEFAULT TRUE,
     created_at DATETIME NOT NULL,
     updated_at DATETIME NOT NULL,
-    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    INDEX idx_directory_public_display_name (is_public, display_name)
 );
 
 -- DISCUSSIONS
@@ -86,13 +93,18 @@ CREATE TABLE documents (
     category ENUM('GOVERNANCE', 'RESOURCES', 'MEETINGS', 'GUIDELINES', 'FORMS') NOT NULL,
     access_level ENUM('PUBLIC', 'MEMBER', 'COMMITTEE', 'ADMIN') NOT NULL DEFAULT 'PUBLIC',
     file_type VARCHAR(255),
-    file_size VARCHAR(255),
+    file_size BIGINT,
     file_url VARCHAR(255),
+    stored_file_name VARCHAR(255),
     uploaded_by CHAR(36) NOT NULL,
     download_count INT DEFAULT 0,
     created_at DATETIME NOT NULL,
     updated_at DATETIME NOT NULL,
-    FOREIGN KEY (uploaded_by) REFERENCES users(id) ON DELETE CASCADE
+    FOREIGN KEY (uploaded_by) REFERENCES users(id) ON DELETE CASCADE,
+    INDEX idx_documents_created_id (created_at, id),
+    INDEX idx_documents_category_created_id (category, created_at, id),
+    INDEX idx_documents_download_count (download_count),
+    INDEX idx_documents_stored_file_name (stored_file_name)
 );
 
 -- EVENTS
@@ -108,10 +120,12 @@ CREATE TABLE events (
     status ENUM('UPCOMING', 'ONGOING', 'COMPLETED', 'CANCELLED') DEFAULT 'UPCOMING',
     created_by CHAR(36) NOT NULL,
     image_url VARCHAR(255),
+    image_file_name VARCHAR(255),
     registration_required BOOLEAN DEFAULT FALSE,
     created_at DATETIME NOT NULL,
     updated_at DATETIME NOT NULL,
-    FOREIGN KEY (created_by) REFERENCES users(id) ON DELETE CASCADE
+    FOREIGN KEY (created_by) REFERENCES users(id) ON DELETE CASCADE,
+    INDEX idx_events_image_file_name (image_file_name)
 );
 
 -- EVENT REGISTRATIONS
@@ -185,6 +199,7 @@ CREATE TABLE volunteer_opportunities (
     max_volunteers INT,
     current_volunteers INT DEFAULT 0,
     status ENUM('ACTIVE', 'FILLED', 'CANCELLED') DEFAULT 'ACTIVE',
+    version BIGINT NOT NULL DEFAULT 0,
     created_by CHAR(36) NOT NULL,
     created_at DATETIME NOT NULL,
     updated_at DATETIME NOT NULL,
@@ -202,4 +217,47 @@ CREATE TABLE volunteer_registrations (
     UNIQUE (opportunity_id, user_id),
     FOREIGN KEY (opportunity_id) REFERENCES volunteer_opportunities(id) ON DELETE CASCADE,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- FILE BLOBS (content-addressed uploads shared by reference count)
+CREATE TABLE file_blobs (
+    file_name VARCHAR(80) PRIMARY KEY,
+    size BIGINT NOT NULL,
+    reference_count INT NOT NULL,
+    created_at DATETIME NOT NULL
+);
+
+-- UPLOAD SESSIONS (resumable chunked document uploads)
+CREATE TABLE upload_sessions (
+    id CHAR(36) PRIMARY KEY,
+    uploaded_by CHAR(36) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    category VARCHAR(50) NOT NULL,
+    access_level VARCHAR(50) NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    file_extension VARCHAR(16) NOT NULL,
+    content_type VARCHAR(255),
+    total_size BIGINT NOT NULL,
+    received_bytes BIGINT NOT NULL DEFAULT 0,
+    created_at DATETIME NOT NULL,
+    updated_at DATETIME NOT NULL,
+    FOREIGN KEY (uploaded_by) REFERENCES users(id) ON DELETE CASCADE,
+    INDEX idx_upload_sessions_updated_at (updated_at)
+);
+
+-- STORAGE USAGE (per-user ledger of stored bytes, maintained on every upload and delete)
+CREATE TABLE storage_usage (
+    user_id CHAR(36) PRIMARY KEY,
+    document_bytes BIGINT NOT NULL,
+    document_count INT NOT NULL,
+    avatar_bytes BIGINT NOT NULL,
+    updated_at DATETIME NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- FILE ACCESS (last read of each stored file, for moving rarely read files to the cold tier)
+CREATE TABLE file_access (
+    file_name VARCHAR(255) PRIMARY KEY,
+    last_accessed_at DATETIME NOT NULL
 );
\ No newline at end of file